@@ -0,0 +1,77 @@
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Fixed-memory approximate all-time totals for one ranking: Space-Saving finds
+ * the heavy hitters, a Count-Min Sketch tightens their upper bounds, and a
+ * HyperLogLog counts distinct names. Memory does not grow with the input, so
+ * it can sit behind processAndAnalyzeFile in place of a HashMap for inputs of
+ * any size.
+ */
+public class ApproximateNameTotals implements ObjIntConsumer<String> {
+
+    /**
+     * One ranked name. The true total lies in [lowerBound, upperBound]; the upper bound
+     * from the sketch holds with probability 1 - delta.
+     */
+    public record Estimate(String name, long estimate, long lowerBound, long upperBound) {
+    }
+
+    private final SpaceSavingTopK heavyHitters;
+    private final CountMinSketch sketch;
+    private final HyperLogLog distinct;
+
+    /**
+     * @param trackedNames how many names Space-Saving tracks (should be well above the k you print)
+     * @param epsilon      Count-Min error as a fraction of all births added
+     * @param delta        probability that a Count-Min estimate exceeds that error
+     */
+    public ApproximateNameTotals(int trackedNames, double epsilon, double delta) {
+        this.heavyHitters = new SpaceSavingTopK(trackedNames);
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.distinct = new HyperLogLog(14);
+    }
+
+    @Override
+    public void accept(String name, int count) {
+        long hash = hash64(name);
+        heavyHitters.add(name, count);
+        sketch.add(hash, count);
+        distinct.add(hash);
+    }
+
+    /** The k names with the most births, most first, with error bounds. */
+    public List<Estimate> top(int k) {
+        // Re-rank every tracked name by its tightened estimate, since the sketch can lower the order.
+        TopK<Estimate> top = new TopK<>(k, (a, b) -> a.estimate() != b.estimate()
+                ? Long.compare(b.estimate(), a.estimate()) : a.name().compareTo(b.name()));
+        for (SpaceSavingTopK.Entry entry : heavyHitters.top(heavyHitters.getCapacity())) {
+            long upper = Math.min(entry.count(), sketch.estimate(hash64(entry.name())));
+            top.offer(new Estimate(entry.name(), upper, entry.guaranteedCount(), upper));
+        }
+        return top.toList();
+    }
+
+    public long estimateDistinctNames() { return distinct.estimate(); }
+    public double distinctStandardError() { return distinct.standardError(); }
+    public long totalBirths() { return sketch.getTotal(); }
+    public long sketchErrorBound() { return sketch.errorBound(); }
+    public double sketchConfidence() { return 1.0 - sketch.getDelta(); }
+    public long heavyHitterThreshold() { return heavyHitters.guaranteeThreshold(); }
+    public long memoryBytes() { return sketch.memoryBytes() + distinct.memoryBytes() + 64L * heavyHitters.getCapacity(); }
+
+    /** 64-bit FNV-1a over the name's characters, finished with a Murmur3 mix. */
+    static long hash64(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
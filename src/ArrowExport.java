@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+/**
+ * Exports baby name data as Arrow IPC files (see ArrowIpcWriter) so other
+ * tools can memory-map the columns instead of re-parsing printed tables.
+ *
+ * The corpus file has one row per name per year and gender, one record batch
+ * per (year, gender), with columns year, gender, rank, name, count and
+ * cumulative_births (births of this name and every name ranked above it that
+ * year). The rankings file has the all-time female, male and combined
+ * rankings with columns gender ("F", "M" or "all"), rank, name, count and
+ * cumulative_births, in batches of at most BATCH_ROWS rows.
+ *
+ * Usage: java ArrowExport [dataFolder] [fileSuffix] [corpus.arrow]
+ */
+public class ArrowExport {
+
+    public static final int BATCH_ROWS = 1 << 16;
+
+    private static final String DEFAULT_DATA_FOLDER = "C:\\Users\\inouy\\Downloads\\us_babynames\\us_babynames_by_year";
+    private static final String DEFAULT_FILE_SUFFIX = ".csv";
+    private static final String[] CORPUS_COLUMNS = {"year", "gender", "rank", "name", "count", "cumulative_births"};
+    private static final ArrowIpcWriter.Type[] CORPUS_TYPES = {ArrowIpcWriter.Type.INT32, ArrowIpcWriter.Type.UTF8,
+            ArrowIpcWriter.Type.INT32, ArrowIpcWriter.Type.UTF8, ArrowIpcWriter.Type.INT32, ArrowIpcWriter.Type.INT64};
+    private static final String[] RANKING_COLUMNS = {"gender", "rank", "name", "count", "cumulative_births"};
+    private static final ArrowIpcWriter.Type[] RANKING_TYPES = {ArrowIpcWriter.Type.UTF8, ArrowIpcWriter.Type.INT32,
+            ArrowIpcWriter.Type.UTF8, ArrowIpcWriter.Type.INT32, ArrowIpcWriter.Type.INT64};
+
+    private ArrowExport() {
+    }
+
+    /**
+     * Writes every year of the corpus, girls then boys, and returns the number of rows written.
+     * Counts are decoded block by block from each year's compressed columns into reused arrays.
+     */
+    public static long writeCorpus(BabyNameCorpus corpus, Path path) throws IOException {
+        long written = 0;
+        int[] counts = new int[0];
+        long[] cumulative = new long[0];
+        try (ArrowIpcWriter writer = new ArrowIpcWriter(path, CORPUS_COLUMNS, CORPUS_TYPES)) {
+            for (YearData yearData : corpus.years().values()) {
+                for (String gender : new String[] {"F", "M"}) {
+                    String[] names = yearData.getNames(gender);
+                    CountColumn column = yearData.getCountColumn(gender);
+                    int rows = names.length;
+                    if (rows == 0) continue;
+                    if (counts.length < rows) {
+                        counts = new int[rows];
+                        cumulative = new long[rows];
+                    }
+                    for (int b = 0; b * CountColumn.BLOCK < rows; b++) column.decodeBlock(b, counts, b * CountColumn.BLOCK);
+                    long total = 0;
+                    for (int i = 0; i < rows; i++) cumulative[i] = total += counts[i];
+
+                    int year = yearData.getYear();
+                    int[] batchCounts = counts;
+                    long[] batchCumulative = cumulative;
+                    writer.beginBatch(rows);
+                    writer.intColumn(row -> year);
+                    writer.textColumn(row -> gender);
+                    writer.intColumn(row -> row + 1);
+                    writer.textColumn(row -> names[row]);
+                    writer.intColumn(row -> batchCounts[row]);
+                    writer.longColumn(row -> batchCumulative[row]);
+                    writer.endBatch();
+                    written += rows;
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes already-ranked (most births first) female, male and combined totals, and returns the
+     * number of rows written.
+     */
+    public static long writeRankings(Iterator<ProcessBabyNames.NameCount> female, Iterator<ProcessBabyNames.NameCount> male,
+                                     Iterator<ProcessBabyNames.NameCount> combined, Path path) throws IOException {
+        try (ArrowIpcWriter writer = new ArrowIpcWriter(path, RANKING_COLUMNS, RANKING_TYPES)) {
+            RankingBatches batches = new RankingBatches(writer);
+            batches.write("F", female);
+            batches.write("M", male);
+            batches.write("all", combined);
+            return batches.written;
+        }
+    }
+
+    // Collects up to BATCH_ROWS ranked names into reused arrays, then writes them as one batch.
+    private static final class RankingBatches {
+        private final ArrowIpcWriter writer;
+        private final String[] names = new String[BATCH_ROWS];
+        private final int[] counts = new int[BATCH_ROWS];
+        private final long[] cumulative = new long[BATCH_ROWS];
+        private long written;
+
+        RankingBatches(ArrowIpcWriter writer) {
+            this.writer = writer;
+        }
+
+        void write(String gender, Iterator<ProcessBabyNames.NameCount> ranked) throws IOException {
+            int firstRank = 1;
+            long total = 0;
+            while (ranked.hasNext()) {
+                int rows = 0;
+                while (rows < BATCH_ROWS && ranked.hasNext()) {
+                    ProcessBabyNames.NameCount nc = ranked.next();
+                    names[rows] = nc.name();
+                    counts[rows] = nc.count();
+                    cumulative[rows] = total += nc.count();
+                    rows++;
+                }
+                int rankOffset = firstRank;
+                writer.beginBatch(rows);
+                writer.textColumn(row -> gender);
+                writer.intColumn(row -> rankOffset + row);
+                writer.textColumn(row -> names[row]);
+                writer.intColumn(row -> counts[row]);
+                writer.longColumn(row -> cumulative[row]);
+                writer.endBatch();
+                firstRank += rows;
+                written += rows;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String folder = args.length > 0 ? args[0] : DEFAULT_DATA_FOLDER;
+        String suffix = args.length > 1 ? args[1] : DEFAULT_FILE_SUFFIX;
+        Path out = Paths.get(args.length > 2 ? args[2] : "babynames.arrow");
+
+        BabyNameCorpus corpus = BabyNameCorpus.load(folder, suffix);
+        if (corpus.isEmpty()) {
+            System.out.println("No yob files found in " + folder);
+            return;
+        }
+        long start = System.nanoTime();
+        long rows = writeCorpus(corpus, out);
+        System.out.printf("Wrote %d rows from %d year(s) to %s in %.0f ms%n", rows, corpus.years().size(), out,
+                          (System.nanoTime() - start) / 1e6);
+    }
+}
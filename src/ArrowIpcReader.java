@@ -0,0 +1,314 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads back the Arrow IPC files ArrowIpcWriter writes, without the Arrow Java
+ * library, so exports can be checked in this repo. The file is memory-mapped;
+ * the footer gives the schema and the location of every record batch, and each
+ * batch's message metadata gives its row count and buffer locations. Every
+ * length and offset is checked against the file before it is used, and any
+ * mismatch is reported as an IOException.
+ *
+ * Only what the writer produces is understood: non-null int32, int64 and utf8
+ * columns, little-endian, no dictionaries.
+ */
+public class ArrowIpcReader {
+
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final int HEADER_RECORD_BATCH = 3;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_UTF8 = 5;
+
+    /** Where a record batch is, as listed in the footer. */
+    public record Block(long offset, int metadataLength, long bodyLength) {
+    }
+
+    private final ByteBuffer file;
+    private final String[] names;
+    private final ArrowIpcWriter.Type[] types;
+    private final List<Block> blocks = new ArrayList<>();
+
+    /** Maps the file and reads its footer. */
+    public ArrowIpcReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int size = file.limit();
+        if (size < 2 * 8 + 4 || !hasMagic(0) || !hasMagic(size - MAGIC.length)) throw new IOException("Not an Arrow file: " + path);
+        int footerLength = file.getInt(size - MAGIC.length - 4);
+        int footerStart = size - MAGIC.length - 4 - footerLength;
+        if (footerLength <= 0 || footerStart < 8) throw new IOException("Corrupt Arrow footer length " + footerLength + " in " + path);
+
+        FlatTable footer = FlatTable.root(file.slice(footerStart, footerLength).order(ByteOrder.LITTLE_ENDIAN));
+        FlatTable schema = footer.table(1);
+        if (schema == null) throw new IOException("Arrow footer has no schema in " + path);
+        int fields = schema.vectorLength(1);
+        names = new String[fields];
+        types = new ArrowIpcWriter.Type[fields];
+        for (int i = 0; i < fields; i++) {
+            FlatTable field = schema.vectorTable(1, i);
+            names[i] = field.text(0);
+            int typeType = field.int8(2);
+            if (typeType == TYPE_UTF8) {
+                types[i] = ArrowIpcWriter.Type.UTF8;
+            } else if (typeType == TYPE_INT && field.table(3).int32(0) == 32) {
+                types[i] = ArrowIpcWriter.Type.INT32;
+            } else if (typeType == TYPE_INT && field.table(3).int32(0) == 64) {
+                types[i] = ArrowIpcWriter.Type.INT64;
+            } else {
+                throw new IOException("Unsupported type of column " + names[i] + " in " + path);
+            }
+        }
+        // Block struct: offset (long), metaDataLength (int) + 4 bytes padding, bodyLength (long).
+        int count = footer.vectorLength(3);
+        for (int i = 0; i < count; i++) {
+            int at = footer.vectorStart(3) + 24 * i;
+            Block block = new Block(footer.buffer.getLong(at), footer.buffer.getInt(at + 8), footer.buffer.getLong(at + 16));
+            if (block.offset() < 8 || block.metadataLength() < 8 || block.offset() + block.metadataLength() + block.bodyLength() > footerStart) {
+                throw new IOException("Record batch " + i + " " + block + " lies outside the data in " + path);
+            }
+            blocks.add(block);
+        }
+    }
+
+    /** Column names, in schema order. */
+    public String[] names() {
+        return names.clone();
+    }
+
+    /** Column types, in schema order. */
+    public ArrowIpcWriter.Type[] types() {
+        return types.clone();
+    }
+
+    /** The record batches listed in the footer, in file order. */
+    public List<Block> blocks() {
+        return blocks;
+    }
+
+    /** Reads record batch i: its message metadata and its buffers. */
+    public Batch batch(int i) throws IOException {
+        Block block = blocks.get(i);
+        int offset = (int) block.offset();
+        if (file.getInt(offset) != CONTINUATION) throw new IOException("Record batch " + i + " has no continuation marker");
+        int metadataLength = 8 + file.getInt(offset + 4);
+        if (metadataLength != block.metadataLength()) {
+            throw new IOException("Record batch " + i + " metadata is " + metadataLength + " bytes, footer says " + block.metadataLength());
+        }
+        FlatTable message = FlatTable.root(file.slice(offset + 8, metadataLength - 8).order(ByteOrder.LITTLE_ENDIAN));
+        if (message.int8(1) != HEADER_RECORD_BATCH) throw new IOException("Message " + i + " is not a record batch");
+        long bodyLength = message.int64(3);
+        if (bodyLength != block.bodyLength()) throw new IOException("Record batch " + i + " body is " + bodyLength + " bytes, footer says " + block.bodyLength());
+
+        FlatTable header = message.table(2);
+        long rows = header.int64(0);
+        if (header.vectorLength(1) != types.length) throw new IOException("Record batch " + i + " has " + header.vectorLength(1) + " columns, schema has " + types.length);
+        int buffers = header.vectorLength(2);
+        long[] bufferOffset = new long[buffers];
+        long[] bufferLength = new long[buffers];
+        for (int b = 0; b < buffers; b++) {
+            int at = header.vectorStart(2) + 16 * b;
+            bufferOffset[b] = header.buffer.getLong(at);
+            bufferLength[b] = header.buffer.getLong(at + 8);
+            if (bufferOffset[b] < 0 || bufferLength[b] < 0 || bufferOffset[b] + bufferLength[b] > bodyLength) {
+                throw new IOException("Record batch " + i + " buffer " + b + " lies outside its body");
+            }
+        }
+        ByteBuffer body = file.slice(offset + metadataLength, (int) bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+        return new Batch((int) rows, metadataLength, bodyLength, body, bufferOffset, bufferLength);
+    }
+
+    private boolean hasMagic(int at) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (file.get(at + i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * One record batch. Column c's buffers are, in order, its (empty) validity bitmap and its values,
+     * plus an offsets buffer before the values for utf8 columns.
+     */
+    public final class Batch {
+        private final int rows;
+        private final int metadataLength;
+        private final long bodyLength;
+        private final ByteBuffer body;
+        private final long[] bufferOffset;
+        private final long[] bufferLength;
+        // Index of each column's first buffer.
+        private final int[] firstBuffer;
+
+        private Batch(int rows, int metadataLength, long bodyLength, ByteBuffer body, long[] bufferOffset, long[] bufferLength)
+                throws IOException {
+            this.rows = rows;
+            this.metadataLength = metadataLength;
+            this.bodyLength = bodyLength;
+            this.body = body;
+            this.bufferOffset = bufferOffset;
+            this.bufferLength = bufferLength;
+            this.firstBuffer = new int[types.length];
+            int b = 0;
+            for (int c = 0; c < types.length; c++) {
+                firstBuffer[c] = b;
+                b += types[c] == ArrowIpcWriter.Type.UTF8 ? 3 : 2;
+            }
+            if (b != bufferOffset.length) throw new IOException("Record batch has " + bufferOffset.length + " buffers, schema needs " + b);
+            for (int c = 0; c < types.length; c++) {
+                long needed = types[c] == ArrowIpcWriter.Type.INT64 ? 8L * rows : 4L * rows + (types[c] == ArrowIpcWriter.Type.UTF8 ? 4 : 0);
+                if (bufferLength[firstBuffer[c] + 1] < needed) throw new IOException("Column " + names[c] + " is shorter than " + rows + " rows");
+            }
+        }
+
+        public int rows() { return rows; }
+        /** Bytes of the message before the body: continuation marker, length and padded metadata. */
+        public int metadataLength() { return metadataLength; }
+        public long bodyLength() { return bodyLength; }
+        /** The {offset, length} of every buffer in the body, in order. */
+        public long[][] buffers() {
+            long[][] result = new long[bufferOffset.length][];
+            for (int b = 0; b < result.length; b++) result[b] = new long[] {bufferOffset[b], bufferLength[b]};
+            return result;
+        }
+
+        public int intValue(int column, int row) {
+            check(column, row, ArrowIpcWriter.Type.INT32);
+            return body.getInt((int) bufferOffset[firstBuffer[column] + 1] + 4 * row);
+        }
+
+        public long longValue(int column, int row) {
+            check(column, row, ArrowIpcWriter.Type.INT64);
+            return body.getLong((int) bufferOffset[firstBuffer[column] + 1] + 8 * row);
+        }
+
+        public String text(int column, int row) {
+            check(column, row, ArrowIpcWriter.Type.UTF8);
+            int offsets = (int) bufferOffset[firstBuffer[column] + 1];
+            int data = (int) bufferOffset[firstBuffer[column] + 2];
+            int start = body.getInt(offsets + 4 * row);
+            int end = body.getInt(offsets + 4 * (row + 1));
+            if (start < 0 || start > end || end > bufferLength[firstBuffer[column] + 2]) {
+                throw new IllegalStateException("Corrupt offsets for row " + row + " of column " + names[column]);
+            }
+            byte[] utf8 = new byte[end - start];
+            body.get(data + start, utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        private void check(int column, int row, ArrowIpcWriter.Type type) {
+            if (types[column] != type) throw new IllegalArgumentException("Column " + names[column] + " is " + types[column] + ", not " + type);
+            if (row < 0 || row >= rows) throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + rows + " rows");
+        }
+    }
+
+    /**
+     * A FlatBuffers table in a little-endian buffer: a signed offset back to its vtable, then its
+     * fields at the offsets the vtable lists. Missing fields read as 0 or null.
+     */
+    private static final class FlatTable {
+        final ByteBuffer buffer;
+        private final int position;
+
+        private FlatTable(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        static FlatTable root(ByteBuffer buffer) throws IOException {
+            return at(buffer, buffer.getInt(0));
+        }
+
+        private static FlatTable at(ByteBuffer buffer, int position) throws IOException {
+            if (position < 0 || position + 4 > buffer.limit()) throw new IOException("Corrupt Arrow metadata: table at " + position);
+            return new FlatTable(buffer, position);
+        }
+
+        // Position of the field, or -1 if the vtable does not have it.
+        private int field(int id) throws IOException {
+            int vtable = position - buffer.getInt(position);
+            if (vtable < 0 || vtable + 4 > buffer.limit()) throw new IOException("Corrupt Arrow metadata: vtable at " + vtable);
+            int vtableSize = buffer.getShort(vtable);
+            if (4 + 2 * id >= vtableSize) return -1;
+            int offset = buffer.getShort(vtable + 4 + 2 * id);
+            return offset == 0 ? -1 : position + offset;
+        }
+
+        int int8(int id) throws IOException {
+            int at = field(id);
+            return at == -1 ? 0 : buffer.get(at) & 0xFF;
+        }
+
+        int int32(int id) throws IOException {
+            int at = field(id);
+            return at == -1 ? 0 : buffer.getInt(at);
+        }
+
+        long int64(int id) throws IOException {
+            int at = field(id);
+            return at == -1 ? 0 : buffer.getLong(at);
+        }
+
+        private int target(int id) throws IOException {
+            int at = field(id);
+            if (at == -1) return -1;
+            int target = at + buffer.getInt(at);
+            if (target < 0 || target + 4 > buffer.limit()) throw new IOException("Corrupt Arrow metadata: offset to " + target);
+            return target;
+        }
+
+        FlatTable table(int id) throws IOException {
+            int target = target(id);
+            return target == -1 ? null : at(buffer, target);
+        }
+
+        String text(int id) throws IOException {
+            int target = target(id);
+            if (target == -1) return null;
+            byte[] utf8 = new byte[buffer.getInt(target)];
+            buffer.get(target + 4, utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        int vectorLength(int id) throws IOException {
+            int target = target(id);
+            return target == -1 ? 0 : buffer.getInt(target);
+        }
+
+        // Position of the vector's first element.
+        int vectorStart(int id) throws IOException {
+            return target(id) + 4;
+        }
+
+        FlatTable vectorTable(int id, int i) throws IOException {
+            int slot = vectorStart(id) + 4 * i;
+            return at(buffer, slot + buffer.getInt(slot));
+        }
+    }
+
+    /**
+     * Prints the schema and every batch's row count and lengths.
+     * Usage: java ArrowIpcReader <file.arrow>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java ArrowIpcReader <file.arrow>");
+            return;
+        }
+        ArrowIpcReader reader = new ArrowIpcReader(Paths.get(args[0]));
+        System.out.println("Columns: " + Arrays.toString(reader.names()) + " " + Arrays.toString(reader.types()));
+        for (int i = 0; i < reader.blocks().size(); i++) {
+            Batch batch = reader.batch(i);
+            System.out.println("Batch " + i + ": " + batch.rows() + " rows, metadata " + batch.metadataLength() + " bytes, body " + batch.bodyLength() + " bytes");
+        }
+    }
+}
@@ -0,0 +1,431 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Writes a table as an Apache Arrow IPC file (the ".arrow" / Feather v2 format)
+ * without the Arrow Java library: the schema, record batch and footer metadata
+ * are encoded as FlatBuffers by hand, and each batch's column buffers are
+ * written straight from the caller's primitive values into one reusable body
+ * buffer. Readers such as pyarrow, polars or DuckDB can memory-map the result.
+ *
+ * Only non-null int32, int64 and utf8 columns are supported; validity bitmaps
+ * are left empty (null count 0). Buffers are 8-byte aligned and little-endian.
+ *
+ * Usage: one beginBatch(rows), then one intColumn / longColumn / textColumn call
+ * per schema column in order, then endBatch(); repeat; close() writes the footer.
+ */
+public class ArrowIpcWriter implements Closeable {
+
+    public enum Type { INT32, INT64, UTF8 }
+
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final short METADATA_V5 = 4;
+    // Message header and field type union ids from Message.fbs / Schema.fbs.
+    private static final int HEADER_SCHEMA = 1;
+    private static final int HEADER_RECORD_BATCH = 3;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_UTF8 = 5;
+
+    private final FileChannel channel;
+    private final String[] names;
+    private final Type[] types;
+    private long position;
+    // Footer Block entries: {offset, metadata length, body length} per record batch.
+    private final List<long[]> blocks = new ArrayList<>();
+
+    // The batch being written.
+    private ByteBuffer body = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private int rows = -1;
+    private int column;
+    private final List<long[]> buffers = new ArrayList<>(); // {offset, length}
+
+    /**
+     * Creates (or truncates) the file and writes the schema: one column per name, of the given type.
+     */
+    public ArrowIpcWriter(Path path, String[] names, Type[] types) throws IOException {
+        if (names.length != types.length) throw new IllegalArgumentException("Got " + names.length + " column names but " + types.length + " types");
+        this.names = names.clone();
+        this.types = types.clone();
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer magic = ByteBuffer.allocate(8); // Magic padded to 8 bytes
+        magic.put(MAGIC).position(8);
+        write(magic.flip());
+        writeMessage(FlatBuffer.encode(message(HEADER_SCHEMA, schema(), 0)), null);
+    }
+
+    /** Starts a record batch of the given number of rows. */
+    public void beginBatch(int rows) {
+        if (this.rows != -1) throw new IllegalStateException("Previous batch was not ended");
+        if (rows < 0) throw new IllegalArgumentException("Negative row count " + rows);
+        this.rows = rows;
+        this.column = 0;
+        body.clear();
+        buffers.clear();
+    }
+
+    /** Writes the next column, an int32 column, from value(row) for each row in order. */
+    public void intColumn(IntUnaryOperator value) {
+        nextColumn(Type.INT32);
+        startBuffer(4L * rows);
+        for (int row = 0; row < rows; row++) body.putInt(value.applyAsInt(row));
+        endBuffer();
+    }
+
+    /** Writes the next column, an int64 column, from value(row) for each row in order. */
+    public void longColumn(IntToLongFunction value) {
+        nextColumn(Type.INT64);
+        startBuffer(8L * rows);
+        for (int row = 0; row < rows; row++) body.putLong(value.applyAsLong(row));
+        endBuffer();
+    }
+
+    /**
+     * Writes the next column, a utf8 column, from value(row) for each row in order. ASCII text is
+     * copied char by char; other strings are encoded with getBytes.
+     */
+    public void textColumn(IntFunction<String> value) {
+        nextColumn(Type.UTF8);
+        // The offsets buffer is reserved first and filled in while the text is appended after it.
+        int offsetsStart = startBuffer(4L * (rows + 1));
+        body.position(offsetsStart + 4 * (rows + 1));
+        endBuffer();
+        int dataStart = startBuffer(0);
+        body.putInt(offsetsStart, 0);
+        for (int row = 0; row < rows; row++) {
+            String text = value.apply(row);
+            ensureCapacity(text.length());
+            boolean ascii = true;
+            int start = body.position();
+            for (int i = 0; i < text.length() && ascii; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) body.put((byte) c);
+                else ascii = false;
+            }
+            if (!ascii) {
+                byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                body.position(start);
+                ensureCapacity(utf8.length);
+                body.put(utf8);
+            }
+            body.putInt(offsetsStart + 4 * (row + 1), body.position() - dataStart);
+        }
+        buffers.get(buffers.size() - 1)[1] = body.position() - dataStart;
+        endBuffer();
+    }
+
+    /** Writes the batch's metadata and body to the file. */
+    public void endBatch() throws IOException {
+        if (rows == -1) throw new IllegalStateException("No batch was begun");
+        if (column != types.length) throw new IllegalStateException("Batch has " + column + " of " + types.length + " columns");
+        body.flip();
+        long blockOffset = position;
+        int metadataLength = writeMessage(FlatBuffer.encode(message(HEADER_RECORD_BATCH, recordBatch(), body.limit())), body);
+        blocks.add(new long[] {blockOffset, metadataLength, body.limit()});
+        rows = -1;
+    }
+
+    /** Writes the end-of-stream marker and the footer that lets readers find every batch. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows != -1) throw new IllegalStateException("Batch was not ended");
+            ByteBuffer end = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            end.putInt(CONTINUATION).putInt(0);
+            write(end.flip());
+            byte[] footer = FlatBuffer.encode(footer());
+            ByteBuffer tail = ByteBuffer.allocate(footer.length + 4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+            tail.put(footer).putInt(footer.length).put(MAGIC);
+            write(tail.flip());
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void nextColumn(Type type) {
+        if (rows == -1) throw new IllegalStateException("No batch was begun");
+        if (column >= types.length) throw new IllegalStateException("Batch already has all " + types.length + " columns");
+        if (types[column] != type) throw new IllegalArgumentException("Column " + names[column] + " is " + types[column] + ", not " + type);
+        column++;
+        buffers.add(new long[] {body.position(), 0}); // Empty validity bitmap: no nulls.
+    }
+
+    // Buffers start 8-byte aligned; returns the start.
+    private int startBuffer(long length) {
+        if (length > Integer.MAX_VALUE - 64) throw new IllegalArgumentException("Batch too large: " + length + " bytes in one buffer");
+        ensureCapacity((int) length);
+        int start = body.position();
+        buffers.add(new long[] {start, length});
+        return start;
+    }
+
+    private void endBuffer() {
+        ensureCapacity(8);
+        while (body.position() % 8 != 0) body.put((byte) 0);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (body.remaining() >= extra + 8) return;
+        long needed = (long) body.position() + extra + 8;
+        ByteBuffer bigger = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, 2L * body.capacity())))
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        body.flip();
+        bigger.put(body);
+        body = bigger;
+    }
+
+    // Continuation marker, padded metadata length, metadata, then the body; returns the Block metadata length.
+    private int writeMessage(byte[] metadata, ByteBuffer messageBody) throws IOException {
+        int padded = (metadata.length + 7) / 8 * 8;
+        ByteBuffer head = ByteBuffer.allocate(8 + padded).order(ByteOrder.LITTLE_ENDIAN);
+        head.putInt(CONTINUATION).putInt(padded).put(metadata);
+        head.position(head.capacity());
+        write(head.flip());
+        if (messageBody != null) write(messageBody);
+        return 8 + padded;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) position += channel.write(buffer);
+    }
+
+    // --- FlatBuffers metadata (field ids follow the Arrow .fbs files) ---
+
+    private FlatBuffer.Table message(int headerType, FlatBuffer.Table header, long bodyLength) {
+        return new FlatBuffer.Table()
+                .int16(0, METADATA_V5)
+                .int8(1, headerType)
+                .offset(2, header)
+                .int64(3, bodyLength);
+    }
+
+    private FlatBuffer.Table schema() {
+        List<FlatBuffer.Node> fields = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            FlatBuffer.Table type = types[i] == Type.UTF8 ? new FlatBuffer.Table()
+                    : new FlatBuffer.Table().int32(0, types[i] == Type.INT32 ? 32 : 64).int8(1, 1);
+            fields.add(new FlatBuffer.Table()
+                    .offset(0, new FlatBuffer.Text(names[i]))
+                    .int8(1, 0)
+                    .int8(2, types[i] == Type.UTF8 ? TYPE_UTF8 : TYPE_INT)
+                    .offset(3, type)
+                    .offset(5, new FlatBuffer.Vector(List.of())));
+        }
+        return new FlatBuffer.Table()
+                .int16(0, 0) // Little-endian
+                .offset(1, new FlatBuffer.Vector(fields));
+    }
+
+    private FlatBuffer.Table recordBatch() {
+        long[] nodes = new long[2 * types.length];
+        for (int i = 0; i < types.length; i++) nodes[2 * i] = rows; // {length, null count}
+        long[] bufferStructs = new long[2 * buffers.size()];
+        for (int i = 0; i < buffers.size(); i++) {
+            bufferStructs[2 * i] = buffers.get(i)[0];
+            bufferStructs[2 * i + 1] = buffers.get(i)[1];
+        }
+        return new FlatBuffer.Table()
+                .int64(0, rows)
+                .offset(1, new FlatBuffer.Structs(types.length, nodes))
+                .offset(2, new FlatBuffer.Structs(buffers.size(), bufferStructs));
+    }
+
+    private FlatBuffer.Table footer() {
+        // Block struct: offset (long), metaDataLength (int) + 4 bytes padding, bodyLength (long).
+        long[] blockStructs = new long[3 * blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            long[] block = blocks.get(i);
+            blockStructs[3 * i] = block[0];
+            blockStructs[3 * i + 1] = block[1];
+            blockStructs[3 * i + 2] = block[2];
+        }
+        return new FlatBuffer.Table()
+                .int16(0, METADATA_V5)
+                .offset(1, schema())
+                .offset(2, new FlatBuffer.Structs(0, new long[0]))
+                .offset(3, new FlatBuffer.Structs(blocks.size(), blockStructs));
+    }
+
+    /**
+     * A minimal FlatBuffers encoder, just enough for Arrow metadata. Objects are written front to
+     * back: each table's vtable, then the table, then the objects it refers to, so every uoffset
+     * points forward as the format requires. Structs are vectors of 8-byte words (Block's int
+     * field is widened to a word, matching its padded layout).
+     */
+    private static final class FlatBuffer {
+
+        interface Node {
+        }
+
+        static final class Text implements Node {
+            final byte[] utf8;
+            Text(String value) { this.utf8 = value.getBytes(StandardCharsets.UTF_8); }
+        }
+
+        static final class Vector implements Node {
+            final List<? extends Node> items;
+            Vector(List<? extends Node> items) { this.items = items; }
+        }
+
+        static final class Structs implements Node {
+            final int count;
+            final long[] words;
+            Structs(int count, long[] words) { this.count = count; this.words = words; }
+        }
+
+        static final class Table implements Node {
+            private final List<int[]> scalars = new ArrayList<>(); // {id, size}
+            private final List<Long> values = new ArrayList<>();
+            private final List<Integer> offsetIds = new ArrayList<>();
+            private final List<Node> children = new ArrayList<>();
+
+            Table int8(int id, int value) { return scalar(id, 1, value); }
+            Table int16(int id, int value) { return scalar(id, 2, value); }
+            Table int32(int id, int value) { return scalar(id, 4, value); }
+            Table int64(int id, long value) { return scalar(id, 8, value); }
+
+            Table offset(int id, Node child) {
+                offsetIds.add(id);
+                children.add(child);
+                return this;
+            }
+
+            private Table scalar(int id, int size, long value) {
+                scalars.add(new int[] {id, size});
+                values.add(value);
+                return this;
+            }
+        }
+
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        /** The buffer for a root table: its uoffset, then the objects. */
+        static byte[] encode(Table root) {
+            FlatBuffer out = new FlatBuffer();
+            out.putInt(0);
+            int rootPosition = out.write(root);
+            out.setInt(0, rootPosition);
+            return Arrays.copyOf(out.bytes, out.length);
+        }
+
+        // Writes the node and everything it refers to; returns where uoffsets to it should point.
+        private int write(Node node) {
+            if (node instanceof Table table) return writeTable(table);
+            if (node instanceof Text text) {
+                align(4, 0);
+                int start = length;
+                putInt(text.utf8.length);
+                for (byte b : text.utf8) putByte(b);
+                putByte(0);
+                return start;
+            }
+            if (node instanceof Structs structs) {
+                align(8, 4); // The elements after the length are 8-byte aligned.
+                int start = length;
+                putInt(structs.count);
+                for (long word : structs.words) putLong(word);
+                return start;
+            }
+            Vector vector = (Vector) node;
+            align(4, 0);
+            int start = length;
+            putInt(vector.items.size());
+            int slots = length;
+            for (int i = 0; i < vector.items.size(); i++) putInt(0);
+            for (int i = 0; i < vector.items.size(); i++) {
+                int slot = slots + 4 * i;
+                setInt(slot, write(vector.items.get(i)) - slot);
+            }
+            return start;
+        }
+
+        private int writeTable(Table table) {
+            // Field layout after the 4-byte vtable offset: largest first, so each is naturally aligned.
+            int maxId = -1;
+            for (int[] scalar : table.scalars) maxId = Math.max(maxId, scalar[0]);
+            for (int id : table.offsetIds) maxId = Math.max(maxId, id);
+            int[] fieldOffset = new int[maxId + 1];
+            int[] scalarOffset = new int[table.scalars.size()];
+            int[] childOffset = new int[table.children.size()];
+            int size = 4;
+            boolean hasLong = false;
+            for (int fieldSize = 8; fieldSize >= 1; fieldSize /= 2) {
+                for (int i = 0; i < table.scalars.size(); i++) {
+                    if (table.scalars.get(i)[1] != fieldSize) continue;
+                    hasLong |= fieldSize == 8;
+                    scalarOffset[i] = size;
+                    fieldOffset[table.scalars.get(i)[0]] = size;
+                    size += fieldSize;
+                }
+                if (fieldSize == 4) {
+                    for (int i = 0; i < table.children.size(); i++) {
+                        childOffset[i] = size;
+                        fieldOffset[table.offsetIds.get(i)] = size;
+                        size += 4;
+                    }
+                }
+            }
+
+            align(2, 0);
+            int vtable = length;
+            putShort(4 + 2 * fieldOffset.length);
+            putShort(size);
+            for (int offset : fieldOffset) putShort(offset);
+
+            if (hasLong) align(8, 4); else align(4, 0);
+            int start = length;
+            putInt(start - vtable);
+            while (length < start + size) putByte(0);
+            for (int i = 0; i < table.scalars.size(); i++) {
+                int at = start + scalarOffset[i];
+                long value = table.values.get(i);
+                for (int b = 0; b < table.scalars.get(i)[1]; b++) bytes[at + b] = (byte) (value >>> (8 * b));
+            }
+            for (int i = 0; i < table.children.size(); i++) {
+                int field = start + childOffset[i];
+                setInt(field, write(table.children.get(i)) - field);
+            }
+            return start;
+        }
+
+        // Pads with zeros until (length + phase) is a multiple of alignment.
+        private void align(int alignment, int phase) {
+            while ((length + phase) % alignment != 0) putByte(0);
+        }
+
+        private void putByte(int value) {
+            if (length == bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            bytes[length++] = (byte) value;
+        }
+
+        private void putShort(int value) {
+            putByte(value);
+            putByte(value >>> 8);
+        }
+
+        private void putInt(int value) {
+            for (int b = 0; b < 4; b++) putByte(value >>> (8 * b));
+        }
+
+        private void putLong(long value) {
+            for (int b = 0; b < 8; b++) putByte((int) (value >>> (8 * b)));
+        }
+
+        private void setInt(int at, int value) {
+            for (int b = 0; b < 4; b++) bytes[at + b] = (byte) (value >>> (8 * b));
+        }
+    }
+}
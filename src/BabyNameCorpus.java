@@ -0,0 +1,178 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * All years of baby name data in a folder, keyed by year.
+ * Years are read from their CSV file at most once: either on first access
+ * through getYear, or ahead of time on a background thread via prefetch,
+ * so a session only pays for the years it actually touches.
+ */
+public class BabyNameCorpus {
+
+    // Shared by all corpora; daemon threads so a pending prefetch never keeps the JVM alive.
+    private static final ExecutorService PREFETCHER = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "year-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final NavigableMap<Integer, File> files;
+    private final Map<Integer, CompletableFuture<YearData>> loaded = new ConcurrentHashMap<>();
+    // Set once every year has been loaded, so years() does not rebuild its map.
+    private volatile NavigableMap<Integer, YearData> allYears;
+
+    /** Wraps years that are already in memory. */
+    public BabyNameCorpus(Collection<YearData> years) {
+        this.files = new TreeMap<>();
+        NavigableMap<Integer, YearData> byYear = new TreeMap<>();
+        for (YearData yearData : years) {
+            loaded.put(yearData.getYear(), CompletableFuture.completedFuture(yearData));
+            byYear.put(yearData.getYear(), yearData);
+        }
+        this.allYears = Collections.unmodifiableNavigableMap(byYear);
+    }
+
+    private BabyNameCorpus(NavigableMap<Integer, File> files) {
+        this.files = files;
+    }
+
+    /**
+     * Lists every "yobXXXX" + suffix file in the folder (e.g. yob2012short.csv) without reading
+     * any of them; each year is loaded on first use.
+     */
+    public static BabyNameCorpus open(String folderPath, String suffix) {
+        NavigableMap<Integer, File> files = new TreeMap<>();
+        File[] listing = new File(folderPath).listFiles();
+        if (listing == null) {
+            System.err.println("Error: Could not list data folder: " + folderPath);
+        } else {
+            for (File file : listing) {
+                int year = getYearFromFilename(file.getName(), suffix);
+                if (year != -1) files.put(year, file);
+            }
+        }
+        return new BabyNameCorpus(files);
+    }
+
+    /**
+     * Same as open, but takes the year -> file map from the folder's catalog instead of
+     * parsing file names; only files the catalog could read are included.
+     */
+    public static BabyNameCorpus open(YearCatalog catalog, String suffix) {
+        return new BabyNameCorpus(catalog.files(suffix));
+    }
+
+    /**
+     * Same as open, but reads every year up front. Files that cannot be read are reported and skipped.
+     */
+    public static BabyNameCorpus load(String folderPath, String suffix) {
+        BabyNameCorpus corpus = open(folderPath, suffix);
+        corpus.years();
+        return corpus;
+    }
+
+    /**
+     * Returns the data for the year, loading it now if no one has yet, or null if the year
+     * has no file or could not be read. Waits for an in-flight prefetch instead of reading twice.
+     */
+    public YearData getYear(int year) {
+        CompletableFuture<YearData> future = loaded.get(year);
+        if (future == null) {
+            if (!files.containsKey(year)) return null;
+            CompletableFuture<YearData> mine = new CompletableFuture<>();
+            future = loaded.putIfAbsent(year, mine);
+            if (future == null) {
+                mine.complete(read(year));
+                return mine.join();
+            }
+        }
+        return future.join();
+    }
+
+    /**
+     * Starts loading the given years on a background thread if they are not loaded or loading yet.
+     */
+    public void prefetch(int... years) {
+        for (int year : years) {
+            if (!files.containsKey(year) || loaded.containsKey(year)) continue;
+            CompletableFuture<YearData> mine = new CompletableFuture<>();
+            if (loaded.putIfAbsent(year, mine) == null) {
+                PREFETCHER.execute(() -> mine.complete(read(year)));
+            }
+        }
+    }
+
+    /** Whether the year has finished loading (successfully or not). */
+    public boolean isLoaded(int year) {
+        CompletableFuture<YearData> future = loaded.get(year);
+        return future != null && future.isDone();
+    }
+
+    /**
+     * All years in ascending order. Loads any year not loaded yet, in parallel with the
+     * prefetch threads, so prefer getYear for queries that touch only a few years.
+     */
+    public NavigableMap<Integer, YearData> years() {
+        NavigableMap<Integer, YearData> result = allYears;
+        if (result != null) return result;
+        prefetch(files.keySet().stream().mapToInt(Integer::intValue).toArray());
+        NavigableMap<Integer, YearData> years = new TreeMap<>();
+        for (int year : files.keySet()) {
+            YearData yearData = getYear(year);
+            if (yearData != null) years.put(year, yearData);
+        }
+        result = Collections.unmodifiableNavigableMap(years);
+        allYears = result;
+        return result;
+    }
+
+    /** True if there are no years available. */
+    public boolean isEmpty() {
+        return yearKeys().isEmpty();
+    }
+
+    public int firstYear() {
+        return isEmpty() ? -1 : yearKeys().firstKey();
+    }
+
+    public int lastYear() {
+        return isEmpty() ? -1 : yearKeys().lastKey();
+    }
+
+    private NavigableMap<Integer, ?> yearKeys() {
+        return allYears != null ? allYears : files;
+    }
+
+    private YearData read(int year) {
+        File file = files.get(year);
+        try {
+            return YearData.load(file, year);
+        } catch (IOException | RuntimeException e) {
+            // Never let a bad file leave its future incomplete; callers would wait on it forever.
+            System.err.println("Error reading file: " + file.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the year of a file named "yob" + 4-digit year + suffix, or -1 for any other file.
+     */
+    static int getYearFromFilename(String filename, String suffix) {
+        if (filename == null || filename.length() != 7 + suffix.length()) return -1;
+        if (!filename.toLowerCase().startsWith("yob") || !filename.endsWith(suffix)) return -1;
+        try {
+            return Integer.parseInt(filename.substring(3, 7));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Interactive shell over the baby name data. The data folder is read once at
+ * start-up; every command after that is answered from memory and reports how
+ * long it took, so asking many questions does not pay a cold start each time.
+ *
+ * Usage: java BabyNamesShell [dataFolder] [fileSuffix]
+ */
+public class BabyNamesShell {
+
+    private static final String DEFAULT_DATA_FOLDER = "C:\\Users\\inouy\\Downloads\\us_babynames\\us_babynames_by_year";
+    private static final String DEFAULT_FILE_SUFFIX = ".csv";
+
+    private static final String HELP =
+          "Commands (gender is F or M):\n"
+        + "  rank <year> <name> <gender>                 rank of a name in a year\n"
+        + "  name <year> <rank> <gender>                 name at a rank in a year\n"
+        + "  translate <name> <year> <newYear> <gender>  same-rank name in another year\n"
+        + "  best <name> <gender> [startYear endYear]    year of highest rank\n"
+        + "  avg <name> <gender> [startYear endYear]     average rank\n"
+        + "  higher <year> <name> <gender>               births ranked higher than a name\n"
+        + "  top <startYear> <endYear> <gender> [n]      most popular names in a year range\n"
+        + "  share <year> <name> <gender>                share of births and percentile rank\n"
+        + "  help                                        show this list\n"
+        + "  quit                                        leave the shell";
+
+    private final BabyNameCorpus corpus;
+    private final ProcessBabyNames processor;
+    private final NameShareIndex shares;
+
+    public BabyNamesShell(BabyNameCorpus corpus) {
+        this.corpus = corpus;
+        this.processor = new ProcessBabyNames(corpus);
+        this.shares = new NameShareIndex(corpus);
+    }
+
+    public static void main(String[] args) {
+        String folder = args.length > 0 ? args[0] : DEFAULT_DATA_FOLDER;
+        String suffix = args.length > 1 ? args[1] : DEFAULT_FILE_SUFFIX;
+
+        System.out.println("--- Baby Names Shell ---");
+        long start = System.nanoTime();
+        BabyNameCorpus corpus = BabyNameCorpus.load(folder, suffix);
+        if (corpus.isEmpty()) {
+            System.out.println("No yobXXXX" + suffix + " files found in " + folder + ". Exiting.");
+            return;
+        }
+        BabyNamesShell shell = new BabyNamesShell(corpus);
+        shell.warmUp();
+        System.out.printf("Loaded %d year(s) (%d-%d) in %.0f ms. Type 'help' for commands.%n",
+                          corpus.years().size(), corpus.firstYear(), corpus.lastYear(), (System.nanoTime() - start) / 1e6);
+
+        Scanner scanner = new Scanner(System.in);
+        while (true) {
+            System.out.print("> ");
+            if (!scanner.hasNextLine()) break;
+            String line = scanner.nextLine().trim();
+            if (line.isEmpty()) continue;
+            if (line.equalsIgnoreCase("quit") || line.equalsIgnoreCase("exit")) break;
+            long commandStart = System.nanoTime();
+            shell.execute(line);
+            System.out.printf("(%.3f ms)%n", (System.nanoTime() - commandStart) / 1e6);
+        }
+        scanner.close();
+        System.out.println("Goodbye.");
+    }
+
+    /** Builds the lazily created indexes now so the first command is as fast as the rest. */
+    public void warmUp() {
+        processor.topNamesInYearRange(corpus.firstYear(), corpus.lastYear(), "F", 1);
+    }
+
+    /** Runs one command line and prints its answer. */
+    public void execute(String line) {
+        String[] parts = line.split("\\s+");
+        String command = parts[0].toLowerCase();
+        try {
+            switch (command) {
+                case "rank": rank(parts); break;
+                case "name": name(parts); break;
+                case "translate": translate(parts); break;
+                case "best": best(parts); break;
+                case "avg": avg(parts); break;
+                case "higher": higher(parts); break;
+                case "top": top(parts); break;
+                case "share": share(parts); break;
+                case "help": System.out.println(HELP); break;
+                default: System.out.println("Unknown command '" + parts[0] + "'. Type 'help' for commands.");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void rank(String[] parts) {
+        expect(parts, 4, "rank <year> <name> <gender>");
+        int year = Integer.parseInt(parts[1]);
+        String gender = gender(parts[3]);
+        int rank = processor.getRank(year, parts[2], gender);
+        if (rank == -1) System.out.println(parts[2] + " (" + gender + ") was not found in " + year + ".");
+        else System.out.println("Rank of " + parts[2] + " (" + gender + ") in " + year + ": " + rank);
+    }
+
+    private void name(String[] parts) {
+        expect(parts, 4, "name <year> <rank> <gender>");
+        int year = Integer.parseInt(parts[1]);
+        int rank = Integer.parseInt(parts[2]);
+        String gender = gender(parts[3]);
+        System.out.println("Name at rank " + rank + " (" + gender + ") in " + year + ": " + processor.getName(year, rank, gender));
+    }
+
+    private void translate(String[] parts) {
+        expect(parts, 5, "translate <name> <year> <newYear> <gender>");
+        processor.whatIsNameInYear(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), gender(parts[4]));
+    }
+
+    private void best(String[] parts) {
+        if (parts.length != 3 && parts.length != 5) throw new IllegalArgumentException("Usage: best <name> <gender> [startYear endYear]");
+        String gender = gender(parts[2]);
+        int startYear = parts.length == 5 ? Integer.parseInt(parts[3]) : corpus.firstYear();
+        int endYear = parts.length == 5 ? Integer.parseInt(parts[4]) : corpus.lastYear();
+        int year = processor.yearOfHighestRank(parts[1], gender, startYear, endYear);
+        if (year == -1) System.out.println(parts[1] + " (" + gender + ") was not found in " + startYear + "-" + endYear + ".");
+        else System.out.println(parts[1] + " (" + gender + ") had its highest rank (" + processor.getRank(year, parts[1], gender) + ") in " + year + ".");
+    }
+
+    private void avg(String[] parts) {
+        if (parts.length != 3 && parts.length != 5) throw new IllegalArgumentException("Usage: avg <name> <gender> [startYear endYear]");
+        String gender = gender(parts[2]);
+        int startYear = parts.length == 5 ? Integer.parseInt(parts[3]) : corpus.firstYear();
+        int endYear = parts.length == 5 ? Integer.parseInt(parts[4]) : corpus.lastYear();
+        double average = processor.getAverageRank(parts[1], gender, startYear, endYear);
+        if (average < 0) System.out.println(parts[1] + " (" + gender + ") was not found in " + startYear + "-" + endYear + ".");
+        else System.out.printf("Average rank of %s (%s) in %d-%d: %.2f%n", parts[1], gender, startYear, endYear, average);
+    }
+
+    private void higher(String[] parts) {
+        expect(parts, 4, "higher <year> <name> <gender>");
+        processor.getTotalBirthsRankedHigher(Integer.parseInt(parts[1]), parts[2], gender(parts[3]));
+    }
+
+    private void top(String[] parts) {
+        if (parts.length != 4 && parts.length != 5) throw new IllegalArgumentException("Usage: top <startYear> <endYear> <gender> [n]");
+        int startYear = Integer.parseInt(parts[1]);
+        int endYear = Integer.parseInt(parts[2]);
+        String gender = gender(parts[3]);
+        int n = parts.length == 5 ? Integer.parseInt(parts[4]) : 10;
+        List<ProcessBabyNames.NameCount> top = processor.topNamesInYearRange(startYear, endYear, gender, n);
+        if (top.isEmpty()) {
+            System.out.println("No names found in that range.");
+            return;
+        }
+        System.out.println("Rank\tName\tTotal Births");
+        for (int i = 0; i < top.size(); i++) {
+            System.out.println((i + 1) + "\t" + top.get(i).name() + "\t" + top.get(i).count());
+        }
+    }
+
+    private void share(String[] parts) {
+        expect(parts, 4, "share <year> <name> <gender>");
+        int year = Integer.parseInt(parts[1]);
+        String gender = gender(parts[3]);
+        NameShareIndex.YearShare share = shares.yearShare(parts[2], year, gender);
+        if (share == null) System.out.println("No data for " + year + ".");
+        else if (share.rank() == -1) System.out.println(parts[2] + " (" + gender + ") was not found in " + year + ".");
+        else System.out.printf("%s (%s) in %d: rank %d, %d births, %.4f%% of births, %.2f%% cumulative, percentile %.2f%n",
+                               parts[2], gender, year, share.rank(), share.births(), 100 * share.share(),
+                               100 * share.cumulativeShare(), share.percentileRank());
+    }
+
+    private static void expect(String[] parts, int count, String usage) {
+        if (parts.length != count) throw new IllegalArgumentException("Usage: " + usage);
+    }
+
+    private static String gender(String value) {
+        String gender = value.toUpperCase();
+        if (!gender.equals("F") && !gender.equals("M")) throw new IllegalArgumentException("Gender must be F or M, got '" + value + "'.");
+        return gender;
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Compares ways of computing whole-corpus birth totals:
+ * re-parsing the CSV files (what runAnalysis does), summing boxed Integers,
+ * CountAggregator's loops over the primitive count columns, and
+ * reading the compressed CountColumns YearData keeps (block decode, block
+ * totals, pruned threshold sums, by-rank reads, prefix sums). Also prints how much memory each form of the counts takes.
+ *
+ * Usage: java CountAggregationBenchmark [dataFolder] [fileSuffix] [rounds]
+ */
+public class CountAggregationBenchmark {
+
+    private static final String DEFAULT_DATA_FOLDER = "C:\\Users\\inouy\\Downloads\\us_babynames\\us_babynames_by_year";
+    private static final String DEFAULT_FILE_SUFFIX = ".csv";
+    private static final int THRESHOLD = 100;
+
+    // Keeps the JIT from discarding results.
+    private static long sink;
+
+    public static void main(String[] args) {
+        String folder = args.length > 0 ? args[0] : DEFAULT_DATA_FOLDER;
+        String suffix = args.length > 1 ? args[1] : DEFAULT_FILE_SUFFIX;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        BabyNameCorpus corpus = BabyNameCorpus.load(folder, suffix);
+        if (corpus.isEmpty()) {
+            System.out.println("No yob files found in " + folder);
+            return;
+        }
+        List<int[]> columns = new ArrayList<>();
+        List<List<Integer>> boxedColumns = new ArrayList<>();
+        List<CountColumn> compressedColumns = new ArrayList<>();
+        long rows = 0;
+        for (YearData yearData : corpus.years().values()) {
+            for (String gender : new String[] {"F", "M"}) {
+                int[] counts = yearData.getCounts(gender);
+                columns.add(counts);
+                compressedColumns.add(yearData.getCountColumn(gender));
+                List<Integer> boxed = new ArrayList<>(counts.length);
+                for (int count : counts) boxed.add(count);
+                boxedColumns.add(boxed);
+                rows += counts.length;
+            }
+        }
+        System.out.println("Loaded " + corpus.years().size() + " year(s), " + rows + " rows.");
+        printSizes(columns, compressedColumns, rows);
+
+        // The CSV path is orders of magnitude slower, so it gets far fewer rounds.
+        int csvRounds = Math.max(1, rounds / 100);
+        report("CSV re-parse (total)", csvRounds, rows, () -> csvTotal(folder, suffix));
+        report("Boxed Integer (total)", rounds, rows, () -> boxedTotal(boxedColumns));
+        report("CountAggregator (total)", rounds, rows, () -> aggregatorTotal(columns));
+        report("CountAggregator (>= " + THRESHOLD + ")", rounds, rows, () -> aggregatorAtLeast(columns));
+        report("CountColumn block decode (total)", rounds, rows, () -> decodedTotal(compressedColumns));
+        report("CountColumn sum (total)", rounds, rows, () -> columnTotal(compressedColumns));
+        report("CountColumn sumAtLeast (>= " + THRESHOLD + ")", rounds, rows, () -> columnAtLeast(compressedColumns));
+        report("CountColumn get by rank (total)", rounds, rows, () -> byRankTotal(compressedColumns));
+        report("CountColumn sumRange (every rank)", Math.max(1, rounds / 10), rows, () -> rankedHigherTotal(compressedColumns));
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void report(String label, int rounds, long rows, LongSupplier task) {
+        // Warm up so the timed rounds measure compiled code.
+        for (int i = 0; i < Math.min(rounds, 20); i++) sink += task.getAsLong();
+        long start = System.nanoTime();
+        long result = 0;
+        for (int i = 0; i < rounds; i++) result = task.getAsLong();
+        long elapsed = System.nanoTime() - start;
+        sink += result;
+        double perRoundMs = elapsed / 1e6 / rounds;
+        double rowsPerSecond = rows / (elapsed / 1e9 / rounds);
+        System.out.printf("%-32s %10.3f ms/round %14.0f rows/s  result=%d%n", label, perRoundMs, rowsPerSecond, result);
+    }
+
+    // int[]: 16-byte header + 4 per count. Boxed: a 16-byte Integer per count above the
+    // Integer cache (-128..127) plus a 4-byte reference, per compressed oops.
+    private static void printSizes(List<int[]> columns, List<CountColumn> compressedColumns, long rows) {
+        long intBytes = 0;
+        long boxedBytes = 0;
+        for (int[] column : columns) {
+            intBytes += 16 + 4L * column.length;
+            boxedBytes += 16 + 4L * column.length;
+            for (int count : column) {
+                if (count < -128 || count > 127) boxedBytes += 16;
+            }
+        }
+        long compressedBytes = 0;
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(serialized)) {
+            for (CountColumn column : compressedColumns) {
+                compressedBytes += column.getByteSize();
+                column.writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        System.out.printf("Count memory: boxed ~%,d bytes, int[] %,d bytes, compressed %,d bytes (%.2f bytes/row, %.1f%% of int[]), serialized %,d bytes%n",
+                          boxedBytes, intBytes, compressedBytes, (double) compressedBytes / rows,
+                          100.0 * compressedBytes / intBytes, serialized.size());
+    }
+
+    private static long csvTotal(String folder, String suffix) {
+        long total = 0;
+        File[] files = new File(folder).listFiles();
+        if (files == null) return 0;
+        for (File file : files) {
+            if (BabyNameCorpus.getYearFromFilename(file.getName(), suffix) == -1) continue;
+            try (Reader reader = Files.newBufferedReader(file.toPath());
+                 CSVParser parser = CSVFormat.DEFAULT.parse(reader)) {
+                for (CSVRecord record : parser) {
+                    total += Integer.parseInt(record.get(2));
+                }
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Error reading file: " + file.getName() + " - " + e.getMessage());
+            }
+        }
+        return total;
+    }
+
+    private static long boxedTotal(List<List<Integer>> columns) {
+        long total = 0;
+        for (List<Integer> column : columns) {
+            for (Integer count : column) total += count;
+        }
+        return total;
+    }
+
+    private static long aggregatorTotal(List<int[]> columns) {
+        long total = 0;
+        for (int[] column : columns) total += CountAggregator.sum(column);
+        return total;
+    }
+
+    private static long decodedTotal(List<CountColumn> columns) {
+        int[] block = new int[CountColumn.BLOCK];
+        long total = 0;
+        for (CountColumn column : columns) {
+            int blocks = (column.size() + CountColumn.BLOCK - 1) / CountColumn.BLOCK;
+            for (int b = 0; b < blocks; b++) {
+                int length = column.decodeBlock(b, block, 0);
+                for (int i = 0; i < length; i++) total += block[i];
+            }
+        }
+        return total;
+    }
+
+    private static long columnTotal(List<CountColumn> columns) {
+        long total = 0;
+        for (CountColumn column : columns) total += column.sum();
+        return total;
+    }
+
+    private static long columnAtLeast(List<CountColumn> columns) {
+        long total = 0;
+        for (CountColumn column : columns) total += column.sumAtLeast(THRESHOLD);
+        return total;
+    }
+
+    private static long byRankTotal(List<CountColumn> columns) {
+        long total = 0;
+        for (CountColumn column : columns) {
+            for (int i = 0; i < column.size(); i++) total += column.get(i);
+        }
+        return total;
+    }
+
+    // Births ranked higher than every rank, as getTotalBirthsRankedHigher computes for one name.
+    private static long rankedHigherTotal(List<CountColumn> columns) {
+        long total = 0;
+        for (CountColumn column : columns) {
+            for (int i = 0; i < column.size(); i++) total += column.sumRange(0, i);
+        }
+        return total;
+    }
+
+    private static long aggregatorAtLeast(List<int[]> columns) {
+        long total = 0;
+        for (int[] column : columns) total += CountAggregator.sumAtLeast(column, THRESHOLD);
+        return total;
+    }
+}
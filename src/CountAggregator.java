@@ -0,0 +1,46 @@
+/**
+ * Sums over primitive count columns (one int per name, in rank order).
+ * Every loop accumulates into a long, so no column can overflow the total.
+ * The loops are plain scalar code: a branch-free masked sum measured slower
+ * than the simple compare-and-add, and the Vector API would need an incubator
+ * module this build does not enable. CountColumn uses these sums on its
+ * decoded blocks.
+ */
+public class CountAggregator {
+
+    private CountAggregator() {
+    }
+
+    /** Total of all counts. */
+    public static long sum(int[] counts) {
+        return sumRange(counts, 0, counts.length);
+    }
+
+    /** Total of counts[from] .. counts[to - 1]. */
+    public static long sumRange(int[] counts, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    /** Total of the counts that are at least threshold. */
+    public static long sumAtLeast(int[] counts, int threshold) {
+        return sumAtLeast(counts, 0, counts.length, threshold);
+    }
+
+    /** Total of the counts in counts[from] .. counts[to - 1] that are at least threshold. */
+    public static long sumAtLeast(int[] counts, int from, int to, int threshold) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            if (counts[i] >= threshold) total += counts[i];
+        }
+        return total;
+    }
+
+    /** part / total as a fraction, or 0 when total is 0. */
+    public static double share(long part, long total) {
+        return total == 0 ? 0.0 : (double) part / total;
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A read-only column of counts in rank order, stored compressed. Counts are
+ * cut into blocks of BLOCK values and each block is stored frame-of-reference:
+ * its smallest value once, then every value minus that reference bit-packed
+ * at the fewest bits that fit the block's largest difference. Because a year's
+ * counts are sorted in descending order, each block spans a narrow range, and
+ * the long tail of 5s and 6s packs into 0 or 1 bit per name instead of 32.
+ *
+ * Any value is read by rank in O(1) (one or two word reads), a whole block
+ * decodes in one tight loop, and each block's running total is kept so a sum
+ * over a rank range decodes at most two partial blocks. writeTo stores the
+ * block references as varint deltas from the previous block, followed by the
+ * packed bits.
+ */
+public final class CountColumn {
+
+    public static final int BLOCK = 128;
+    public static final CountColumn EMPTY = of(new int[0]);
+
+    private final int size;
+    // Per block: smallest value, bits per value and first word in `words`.
+    private final int[] reference;
+    private final byte[] width;
+    private final int[] wordStart;
+    private final long[] words;
+    // prefix[b] is the sum of all values before block b; prefix[blocks] is the total.
+    private final long[] prefix;
+
+    private CountColumn(int size, int[] reference, byte[] width, int[] wordStart, long[] words, long[] prefix) {
+        this.size = size;
+        this.reference = reference;
+        this.width = width;
+        this.wordStart = wordStart;
+        this.words = words;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Compresses the counts. Any order and any int values are accepted; descending counts
+     * compress best.
+     */
+    public static CountColumn of(int[] counts) {
+        int blocks = (counts.length + BLOCK - 1) / BLOCK;
+        int[] reference = new int[blocks];
+        byte[] width = new byte[blocks];
+        int[] wordStart = new int[blocks + 1];
+        long[] prefix = new long[blocks + 1];
+        for (int b = 0; b < blocks; b++) {
+            int from = b * BLOCK;
+            int to = Math.min(counts.length, from + BLOCK);
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, counts[i]);
+                max = Math.max(max, counts[i]);
+                sum += counts[i];
+            }
+            reference[b] = min;
+            width[b] = (byte) (64 - Long.numberOfLeadingZeros((long) max - min));
+            wordStart[b + 1] = wordStart[b] + wordsFor(to - from, width[b]);
+            prefix[b + 1] = prefix[b] + sum;
+        }
+        long[] words = new long[wordStart[blocks]];
+        for (int b = 0; b < blocks; b++) {
+            int from = b * BLOCK;
+            int to = Math.min(counts.length, from + BLOCK);
+            int bits = width[b];
+            if (bits == 0) continue;
+            long base = (long) wordStart[b] << 6;
+            for (int i = from; i < to; i++) {
+                long value = (long) counts[i] - reference[b];
+                long position = base + (long) (i - from) * bits;
+                int word = (int) (position >>> 6);
+                int shift = (int) (position & 63);
+                words[word] |= value << shift;
+                if (shift + bits > 64) words[word + 1] |= value >>> (64 - shift);
+            }
+        }
+        return new CountColumn(counts.length, reference, width, wordStart, words, prefix);
+    }
+
+    /** Number of counts. */
+    public int size() {
+        return size;
+    }
+
+    /** The count at index (rank - 1). */
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        int b = index / BLOCK;
+        return reference[b] + (int) unpack(b, index - b * BLOCK);
+    }
+
+    /** Total of all counts. */
+    public long sum() {
+        return prefix[prefix.length - 1];
+    }
+
+    /** Total of the counts at indexes from .. to - 1. */
+    public long sumRange(int from, int to) {
+        if (from < 0 || to > size || from > to) throw new IndexOutOfBoundsException("Range " + from + ".." + to + " out of bounds for size " + size);
+        return sumBefore(to) - sumBefore(from);
+    }
+
+    /**
+     * Total of the counts that are at least threshold. A block whose smallest value reaches the
+     * threshold is added from its running total and a block whose bit width shows it cannot reach
+     * it is skipped, so a descending column decodes at most one block.
+     */
+    public long sumAtLeast(int threshold) {
+        long total = 0;
+        int[] block = null;
+        for (int b = 0; b < reference.length; b++) {
+            if (reference[b] >= threshold) {
+                total += prefix[b + 1] - prefix[b];
+            } else if ((long) reference[b] + (1L << width[b]) - 1 >= threshold) {
+                if (block == null) block = new int[BLOCK];
+                int length = decodeBlock(b, block, 0);
+                total += CountAggregator.sumAtLeast(block, 0, length, threshold);
+            }
+        }
+        return total;
+    }
+
+    /** All counts as a new array. */
+    public int[] toArray() {
+        int[] out = new int[size];
+        for (int b = 0; b < reference.length; b++) decodeBlock(b, out, b * BLOCK);
+        return out;
+    }
+
+    /**
+     * Decodes block b (indexes b * BLOCK up to BLOCK values) into out starting at offset,
+     * and returns how many values were written.
+     */
+    public int decodeBlock(int b, int[] out, int offset) {
+        int length = Math.min(BLOCK, size - b * BLOCK);
+        int bits = width[b];
+        int ref = reference[b];
+        if (bits == 0) {
+            for (int i = 0; i < length; i++) out[offset + i] = ref;
+            return length;
+        }
+        long mask = (1L << bits) - 1;
+        int word = wordStart[b];
+        int shift = 0;
+        long current = words[word];
+        for (int i = 0; i < length; i++) {
+            long value = current >>> shift;
+            shift += bits;
+            if (shift >= 64) {
+                shift -= 64;
+                if (word + 1 < words.length) current = words[++word];
+                if (shift > 0) value |= current << (bits - shift);
+            }
+            out[offset + i] = ref + (int) (value & mask);
+        }
+        return length;
+    }
+
+    /** Approximate heap bytes used by the compressed arrays (an int[] of the counts takes 4 per value). */
+    public long getByteSize() {
+        return 4L * reference.length + width.length + 4L * wordStart.length + 8L * words.length + 8L * prefix.length;
+    }
+
+    /**
+     * Writes the column: varint size, then for each block the varint (zigzag) difference of its
+     * reference from the previous block's, its bit width, and its packed bits as whole bytes.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        writeVarint(out, size);
+        int previous = 0;
+        for (int b = 0; b < reference.length; b++) {
+            int delta = reference[b] - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 31));
+            previous = reference[b];
+            out.writeByte(width[b]);
+            int length = Math.min(BLOCK, size - b * BLOCK);
+            int bytes = (int) (((long) length * width[b] + 7) / 8);
+            for (int i = 0; i < bytes; i++) {
+                long word = words[wordStart[b] + i / 8];
+                out.writeByte((int) (word >>> ((i % 8) * 8)));
+            }
+        }
+    }
+
+    /** Reads a column written by writeTo. */
+    public static CountColumn readFrom(DataInput in) throws IOException {
+        int size = readVarint(in);
+        if (size < 0) throw new IOException("Corrupt count column: negative size " + size);
+        int blocks = (size + BLOCK - 1) / BLOCK;
+        int[] reference = new int[blocks];
+        byte[] width = new byte[blocks];
+        int[] wordStart = new int[blocks + 1];
+        byte[][] packed = new byte[blocks][];
+        int previous = 0;
+        for (int b = 0; b < blocks; b++) {
+            int zigzag = readVarint(in);
+            reference[b] = previous + ((zigzag >>> 1) ^ -(zigzag & 1));
+            previous = reference[b];
+            width[b] = in.readByte();
+            if (width[b] < 0 || width[b] > 32) throw new IOException("Corrupt count column: bit width " + width[b]);
+            int length = Math.min(BLOCK, size - b * BLOCK);
+            packed[b] = new byte[(int) (((long) length * width[b] + 7) / 8)];
+            in.readFully(packed[b]);
+            wordStart[b + 1] = wordStart[b] + wordsFor(length, width[b]);
+        }
+        long[] words = new long[wordStart[blocks]];
+        for (int b = 0; b < blocks; b++) {
+            for (int i = 0; i < packed[b].length; i++) {
+                words[wordStart[b] + i / 8] |= (packed[b][i] & 0xFFL) << ((i % 8) * 8);
+            }
+        }
+        CountColumn column = new CountColumn(size, reference, width, wordStart, words, new long[blocks + 1]);
+        int[] block = new int[BLOCK];
+        for (int b = 0; b < blocks; b++) {
+            int length = column.decodeBlock(b, block, 0);
+            long sum = 0;
+            for (int i = 0; i < length; i++) sum += block[i];
+            column.prefix[b + 1] = column.prefix[b] + sum;
+        }
+        return column;
+    }
+
+    // Sum of the values at indexes 0 .. end - 1: whole blocks from prefix, then the start of the last block.
+    private long sumBefore(int end) {
+        int b = end / BLOCK;
+        int within = end - b * BLOCK;
+        long total = prefix[b];
+        if (within == 0) return total;
+        total += (long) reference[b] * within;
+        if (width[b] == 0) return total;
+        for (int i = 0; i < within; i++) total += unpack(b, i);
+        return total;
+    }
+
+    private long unpack(int b, int i) {
+        int bits = width[b];
+        if (bits == 0) return 0;
+        long position = ((long) wordStart[b] << 6) + (long) i * bits;
+        int word = (int) (position >>> 6);
+        int shift = (int) (position & 63);
+        long value = words[word] >>> shift;
+        if (shift + bits > 64) value |= words[word + 1] << (64 - shift);
+        return value & ((1L << bits) - 1);
+    }
+
+    private static int wordsFor(int length, int bits) {
+        return (int) (((long) length * bits + 63) / 64);
+    }
+
+    private static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readByte() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupt count column: varint too long");
+    }
+}
@@ -1,13 +1,10 @@
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.HeadlessException;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 
 public class CountGenderNames {
 
@@ -19,30 +16,18 @@ public class CountGenderNames {
             return;
         }
         
-        int totalMaleNames = 0;
-        int totalFemaleNames = 0;
-        
-        // Process the file: assuming CSV structure: 0=name, 1=gender, 2=count.
-        try (Reader reader = Files.newBufferedReader(selectedFile.toPath());
-             CSVParser parser = CSVFormat.DEFAULT.parse(reader)) {
-             
-            for (CSVRecord record : parser) {
-                String gender = record.get(1);
-                if (gender.equalsIgnoreCase("M")) {
-                    totalMaleNames++;
-                } else if (gender.equalsIgnoreCase("F")) {
-                    totalFemaleNames++;
-                }
-            }
-            
-        } catch (IOException e) {
+        // Read from the catalog file if it is current there; otherwise only the selected file is parsed.
+        YearCatalog.Entry entry;
+        try {
+            entry = YearCatalog.summarize(selectedFile, Paths.get(YearCatalog.CATALOG_FILE_NAME));
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading file: " + selectedFile.getName() + " - " + e.getMessage());
             return;
         }
         
         // Print the results.
-        System.out.println("Total Male Names: " + totalMaleNames);
-        System.out.println("Total Female Names: " + totalFemaleNames);
+        System.out.println("Total Male Names: " + entry.maleRows());
+        System.out.println("Total Female Names: " + entry.femaleRows());
     }
     
     /**
@@ -0,0 +1,65 @@
+/**
+ * Count-Min Sketch: approximate per-key totals in fixed memory.
+ * An estimate is never below the true total, and with probability at least
+ * 1 - delta it is at most epsilon * (total of everything added) above it.
+ * Keys are passed in as 64-bit hashes (see ApproximateNameTotals.hash64).
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[][] table;
+    private final double epsilon;
+    private final double delta;
+    private long total;
+
+    /**
+     * @param epsilon relative error bound, as a fraction of the total added
+     * @param delta   probability that an estimate exceeds that bound
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1.0 / delta));
+        this.table = new long[depth][width];
+        this.epsilon = Math.E / width;
+        this.delta = Math.exp(-depth);
+    }
+
+    public void add(long hash, long count) {
+        total += count;
+        for (int row = 0; row < depth; row++) {
+            table[row][bucket(hash, row)] += count;
+        }
+    }
+
+    /** Upper-biased estimate of the total added for the key. */
+    public long estimate(long hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row][bucket(hash, row)]);
+        }
+        return min;
+    }
+
+    /** The most an estimate can exceed the true total (with probability 1 - delta). */
+    public long errorBound() {
+        return (long) Math.ceil(epsilon * total);
+    }
+
+    public double getEpsilon() { return epsilon; }
+    public double getDelta() { return delta; }
+    public long getTotal() { return total; }
+
+    /** Approximate memory used by the counters, in bytes. */
+    public long memoryBytes() {
+        return 8L * width * depth;
+    }
+
+    // Double hashing: row i uses h1 + i * h2 from the two halves of the 64-bit hash.
+    private int bucket(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int combined = h1 + row * h2;
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * HyperLogLog distinct counter: estimates how many different keys were added
+ * using 2^precision one-byte registers. The relative standard error is about
+ * 1.04 / sqrt(2^precision), e.g. 0.8% for precision 14 (16 KB).
+ * Keys are passed in as 64-bit hashes (see ApproximateNameTotals.hash64).
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final int registerCount;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new byte[registerCount];
+    }
+
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits (1-based); the guard bit caps it.
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) registers[index] = rank;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double m = registerCount;
+        double estimate = alpha() * m * m / sum;
+        // Small-range correction: linear counting is more accurate while registers are still empty.
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /** Relative standard error of estimate(). */
+    public double standardError() {
+        return 1.04 / Math.sqrt(registerCount);
+    }
+
+    public long memoryBytes() {
+        return registerCount;
+    }
+
+    private double alpha() {
+        switch (registerCount) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / registerCount);
+        }
+    }
+}
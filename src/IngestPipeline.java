@@ -0,0 +1,411 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Reads, parses and totals yob files on three threads joined by bounded queues:
+ *
+ *   read:      file bytes in BLOCK_BYTES blocks (disk only)
+ *   parse:     decodes blocks, splits CSV records, parses counts, in batches of BATCH_RECORDS
+ *   aggregate: ranks records and feeds the totals sinks, per-file summaries and verbose output
+ *
+ * The stages overlap, so a run takes about as long as its slowest stage rather
+ * than the sum of all three. When a stage falls behind, the queue in front of it
+ * fills and the stage before it blocks, so no more than QUEUE_CAPACITY blocks or
+ * batches are in memory per queue. Per-file results match processAndAnalyzeFile,
+ * and getStageStats reports each stage's throughput and how long it waited.
+ * With a catalog set, each file's YearCatalog entry is filled from the same pass
+ * (the read stage checksums the blocks it reads), so no file is read twice.
+ */
+public class IngestPipeline {
+
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final int BATCH_RECORDS = 4096;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final byte FEMALE = 0;
+    private static final byte MALE = 1;
+    private static final byte OTHER = 2;
+
+    /** Called on the aggregation thread as each file starts and finishes, in file order. */
+    public interface Listener {
+        default void fileStarted(File file) {
+        }
+
+        /** results: total births, girls' names, boys' names, all names (as processAndAnalyzeFile returns). */
+        void fileFinished(File file, int[] results);
+    }
+
+    /** What one stage did: items handled, time working, and time blocked on its queues. */
+    public record StageStats(String stage, long items, String unit, long busyNanos, long waitNanos) {
+        /** Items per second of working time, i.e. what the stage could sustain if never starved. */
+        public double itemsPerSecond() {
+            return busyNanos == 0 ? 0 : items * 1e9 / busyNanos;
+        }
+    }
+
+    // A block of one file's bytes; length -1 marks the end of the file.
+    private record Block(int file, byte[] data, int length) {
+    }
+
+    // What the read and parse stages learned about one file beyond its records, for the catalog.
+    // Written before the file's end marker is queued, so the aggregate stage sees it once the file ends.
+    private static final class Source {
+        long size;
+        long modified;
+        long crc32;
+        boolean failed;
+    }
+
+    // Parsed records of one file; an empty batch with last set marks the end of the file.
+    private record Batch(int file, int size, String[] names, byte[] genders, int[] counts, String[] rawGenders, String[] rawCounts, boolean last) {
+    }
+
+    private final ObjIntConsumer<String> femaleTotals;
+    private final ObjIntConsumer<String> maleTotals;
+    private final ObjIntConsumer<String> combinedTotals;
+    private RankedOutput verboseOutput;
+    private YearCatalog catalog;
+    private final List<StageStats> stageStats = new ArrayList<>();
+    private volatile Throwable failure;
+
+    public IngestPipeline(ObjIntConsumer<String> femaleTotals, ObjIntConsumer<String> maleTotals, ObjIntConsumer<String> combinedTotals) {
+        this.femaleTotals = femaleTotals;
+        this.maleTotals = maleTotals;
+        this.combinedTotals = combinedTotals;
+    }
+
+    /** Columns of the verbose record table: the file a record came from, then its rank, name, gender and count. */
+    public static final String[] VERBOSE_COLUMNS = {"File", "Rank", "Name", "Gender", "Count"};
+
+    /**
+     * Writes every record to the output as it is aggregated, as rows of one VERBOSE_COLUMNS table
+     * for all files; null for none.
+     */
+    public void setVerboseOutput(RankedOutput output) {
+        this.verboseOutput = output;
+    }
+
+    /**
+     * Records an entry in the catalog for every file of the catalog's folder and suffix that is
+     * read in full, and saves the catalog after the run; null for none. Files that cannot be read
+     * or parsed to the end are left for the catalog to parse itself. The catalog must not be used
+     * elsewhere while the pipeline runs.
+     */
+    public void setCatalog(YearCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /** Stats of the last run, one entry per stage in pipeline order. */
+    public List<StageStats> getStageStats() {
+        return stageStats;
+    }
+
+    /**
+     * Runs the files through the pipeline and returns their results in the same order.
+     * A file that cannot be read is reported and contributes what was read before the error,
+     * like processAndAnalyzeFile. A failing totals sink (e.g. a full disk while spilling)
+     * stops all stages and is rethrown here.
+     */
+    public int[][] run(File[] files, Listener listener) {
+        failure = null;
+        stageStats.clear();
+        BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        int[][] results = new int[files.length][];
+        Source[] sources = new Source[files.length];
+        for (int f = 0; f < files.length; f++) sources[f] = new Source();
+        StageStats[] stats = new StageStats[3];
+
+        Thread[] threads = {
+            new Thread(() -> stats[0] = read(files, sources, blocks), "ingest-read"),
+            new Thread(() -> stats[1] = parse(files, sources, blocks, batches), "ingest-parse"),
+            new Thread(() -> stats[2] = aggregate(files, sources, batches, results, listener), "ingest-aggregate")
+        };
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> fail(e, threads));
+            thread.start();
+        }
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    fail(e, threads);
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        Throwable error = failure;
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        if (error instanceof Error) throw (Error) error;
+        if (error != null) throw new IllegalStateException("Ingest pipeline stopped: " + error, error);
+        for (StageStats s : stats) stageStats.add(s);
+        if (catalog != null) catalog.save();
+        return results;
+    }
+
+    /** Prints one line per stage: throughput while working, and time spent waiting on queues. */
+    public void printStageStats() {
+        System.out.println("  --- Ingest pipeline stages ---");
+        for (StageStats s : stageStats) {
+            System.out.println(String.format("    %-9s %,12d %-7s %,12.0f/s busy  (busy %,6.0f ms, waiting %,6.0f ms)",
+                                             s.stage(), s.items(), s.unit(), s.itemsPerSecond(), s.busyNanos() / 1e6, s.waitNanos() / 1e6));
+        }
+    }
+
+    // First failure wins; interrupting the others unblocks any put/take so every stage exits.
+    private synchronized void fail(Throwable error, Thread[] threads) {
+        if (failure == null) failure = error;
+        for (Thread thread : threads) {
+            if (thread != Thread.currentThread()) thread.interrupt();
+        }
+    }
+
+    // --- read ---
+
+    private StageStats read(File[] files, Source[] sources, BlockingQueue<Block> out) {
+        long bytes = 0; long[] wait = new long[1];
+        long start = System.nanoTime();
+        boolean checksum = catalog != null;
+        try {
+            for (int f = 0; f < files.length; f++) {
+                Source source = sources[f];
+                // Stat before reading, as YearCatalog does, so a file changed mid-read is cataloged again later.
+                source.size = files[f].length();
+                source.modified = files[f].lastModified();
+                CRC32 crc = new CRC32();
+                try (InputStream in = Files.newInputStream(files[f].toPath())) {
+                    while (true) {
+                        byte[] data = new byte[BLOCK_BYTES];
+                        int length = in.readNBytes(data, 0, data.length);
+                        if (length == 0) break;
+                        bytes += length;
+                        if (checksum) crc.update(data, 0, length);
+                        put(out, new Block(f, data, length), wait);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error reading file: " + files[f].getName() + " - " + e.getMessage());
+                    source.failed = true;
+                }
+                source.crc32 = crc.getValue();
+                put(out, new Block(f, null, -1), wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return stats("read", bytes, "bytes", start, wait[0]);
+    }
+
+    // Blocking put that adds the time spent blocked to wait[0].
+    private static <T> void put(BlockingQueue<T> queue, T item, long[] wait) throws InterruptedException {
+        long start = System.nanoTime();
+        queue.put(item);
+        wait[0] += System.nanoTime() - start;
+    }
+
+    private static StageStats stats(String stage, long items, String unit, long start, long wait) {
+        return new StageStats(stage, items, unit, System.nanoTime() - start - wait, wait);
+    }
+
+    // --- parse ---
+
+    private StageStats parse(File[] files, Source[] sources, BlockingQueue<Block> in, BlockingQueue<Batch> out) {
+        long records = 0; long[] wait = new long[1];
+        long start = System.nanoTime();
+        boolean keepRaw = verboseOutput != null;
+        try {
+            for (int f = 0; f < files.length; f++) {
+                String filename = files[f].getName();
+                BlockStream blockStream = new BlockStream(in, wait);
+                BatchBuilder batch = new BatchBuilder(f, keepRaw);
+                try (Reader reader = new InputStreamReader(blockStream, StandardCharsets.UTF_8);
+                     CSVParser parser = CSVFormat.DEFAULT.parse(reader)) {
+                    for (CSVRecord record : parser) {
+                        String genderField = record.get(1); String numBornStr = record.get(2);
+                        int count = 0;
+                        try { count = Integer.parseInt(numBornStr); }
+                        catch (NumberFormatException e) { System.err.println("Warning: Could not parse number '" + numBornStr + "' in record: " + record + " in file: " + filename); }
+                        byte gender = genderField.equalsIgnoreCase("F") ? FEMALE : genderField.equalsIgnoreCase("M") ? MALE : OTHER;
+                        if (gender == OTHER) System.err.println("Warning: Unexpected gender value '" + genderField + "' in record: " + record + " in file: " + filename);
+                        batch.add(record.get(0), gender, count, genderField, numBornStr);
+                        records++;
+                        if (batch.size == BATCH_RECORDS) {
+                            put(out, batch.build(false), wait);
+                            batch = new BatchBuilder(f, keepRaw);
+                        }
+                    }
+                } catch (IOException | UncheckedIOException | IllegalStateException e) {
+                    // commons-csv wraps read errors, including the stop signal from BlockStream, in UncheckedIOException.
+                    if (e instanceof InterruptedIOException || e.getCause() instanceof InterruptedIOException
+                        || Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                    // A malformed file stops like processAndAnalyzeFile does; skip the rest of its blocks.
+                    System.err.println("Error reading file: " + filename + " - " + e.getMessage());
+                    sources[f].failed = true;
+                }
+                blockStream.drain();
+                put(out, batch.build(true), wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return stats("parse", records, "records", start, wait[0]);
+    }
+
+    private static final class BatchBuilder {
+        final int file;
+        final String[] names = new String[BATCH_RECORDS];
+        final byte[] genders = new byte[BATCH_RECORDS];
+        final int[] counts = new int[BATCH_RECORDS];
+        // The gender and count fields as written in the file, kept only for verbose output.
+        final String[] rawGenders;
+        final String[] rawCounts;
+        int size;
+
+        BatchBuilder(int file, boolean keepRaw) {
+            this.file = file;
+            this.rawGenders = keepRaw ? new String[BATCH_RECORDS] : null;
+            this.rawCounts = keepRaw ? new String[BATCH_RECORDS] : null;
+        }
+
+        void add(String name, byte gender, int count, String rawGender, String rawCount) {
+            names[size] = name;
+            genders[size] = gender;
+            counts[size] = count;
+            if (rawGenders != null) { rawGenders[size] = rawGender; rawCounts[size] = rawCount; }
+            size++;
+        }
+
+        Batch build(boolean last) {
+            return new Batch(file, size, names, genders, counts, rawGenders, rawCounts, last);
+        }
+    }
+
+    /**
+     * InputStream over one file's blocks as they arrive from the read stage. Time blocked in
+     * take() is added to wait[0] so the parse stage can report it as waiting.
+     */
+    private static final class BlockStream extends InputStream {
+        private final BlockingQueue<Block> queue;
+        private final long[] wait;
+        private Block current;
+        private int position;
+        private boolean ended;
+
+        BlockStream(BlockingQueue<Block> queue, long[] wait) {
+            this.queue = queue;
+            this.wait = wait;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!advance()) return -1;
+            int n = Math.min(length, current.length() - position);
+            System.arraycopy(current.data(), position, buffer, offset, n);
+            position += n;
+            return n;
+        }
+
+        // Skips whatever the parser did not read, up to this file's end marker.
+        void drain() throws InterruptedException {
+            try {
+                while (advance()) position = current.length();
+            } catch (IOException e) {
+                // advance() only fails when interrupted.
+                throw new InterruptedException();
+            }
+        }
+
+        private boolean advance() throws IOException {
+            while (!ended && (current == null || position == current.length())) {
+                long start = System.nanoTime();
+                try {
+                    current = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Ingest pipeline stopped");
+                }
+                wait[0] += System.nanoTime() - start;
+                position = 0;
+                if (current.length() == -1) ended = true;
+            }
+            return !ended;
+        }
+    }
+
+    // --- aggregate ---
+
+    private StageStats aggregate(File[] files, Source[] sources, BlockingQueue<Batch> in, int[][] results, Listener listener) {
+        long records = 0; long wait = 0;
+        long start = System.nanoTime();
+        RankedOutput verbose = verboseOutput;
+        try {
+            for (int f = 0; f < files.length; f++) {
+                if (listener != null) listener.fileStarted(files[f]);
+                String fileName = files[f].getName();
+                if (verbose != null) { verbose.headerOnce(VERBOSE_COLUMNS); }
+                int totalBirths = 0; int girls = 0; int boys = 0; int total = 0;
+                long femaleBirths = 0; long maleBirths = 0; long otherBirths = 0; int maxCount = 0; int minCount = 0;
+                while (true) {
+                    long waitStart = System.nanoTime();
+                    Batch batch = in.take();
+                    wait += System.nanoTime() - waitStart;
+                    for (int i = 0; i < batch.size(); i++) {
+                        String name = batch.names()[i]; int births = batch.counts()[i]; byte gender = batch.genders()[i];
+                        if (total == 0) { maxCount = births; minCount = births; }
+                        else { maxCount = Math.max(maxCount, births); minCount = Math.min(minCount, births); }
+                        total++;
+                        int rank = 0;
+                        if (gender == FEMALE) { rank = ++girls; femaleBirths += births; if (births > 0) femaleTotals.accept(name, births); }
+                        else if (gender == MALE) { rank = ++boys; maleBirths += births; if (births > 0) maleTotals.accept(name, births); }
+                        else { otherBirths += births; }
+                        if (births > 0) combinedTotals.accept(name, births);
+                        if (verbose != null) { verbose.beginRow(); verbose.field(fileName); verbose.field(rank); verbose.field(name); verbose.field(batch.rawGenders()[i]); verbose.field(batch.rawCounts()[i]); verbose.endRow(); }
+                    }
+                    totalBirths += (int) CountAggregator.sumRange(batch.counts(), 0, batch.size());
+                    records += batch.size();
+                    if (batch.last()) break;
+                }
+                if (verbose != null) {
+                    try { verbose.flush(); }
+                    catch (IOException e) { System.err.println("Error writing records: " + e.getMessage()); }
+                }
+                results[f] = new int[] {totalBirths, girls, boys, total};
+                int year = catalog == null || sources[f].failed ? -1 : catalog.yearOf(files[f]);
+                if (year != -1) {
+                    Source source = sources[f];
+                    catalog.record(files[f], new YearCatalog.Entry(fileName, year, source.size, source.modified, source.crc32, girls, boys, total,
+                                                                   femaleBirths, maleBirths, femaleBirths + maleBirths + otherBirths, maxCount, minCount));
+                }
+                if (listener != null) listener.fileFinished(files[f], results[f]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return stats("aggregate", records, "records", start, wait);
+    }
+}
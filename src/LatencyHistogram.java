@@ -0,0 +1,69 @@
+/**
+ * Latency histogram in the style of HdrHistogram: values are bucketed by
+ * power of two and each power of two is split into 128 linear sub-buckets,
+ * so any recorded value is reported within about 0.8% of its true size while
+ * the whole histogram stays a fixed 8K longs. Not thread-safe; give each
+ * thread its own histogram and add() them together at the end.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS / 2];
+    private long totalCount;
+    private long max;
+    private double sum;
+
+    /** Records one value (e.g. a latency in nanoseconds). Negative values count as 0. */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    /** Adds all of other's recordings to this histogram. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() { return totalCount; }
+    public long getMax() { return max; }
+    public double getMean() { return totalCount == 0 ? 0 : sum / totalCount; }
+
+    /**
+     * Value at the given percentile (0-100): the upper edge of the bucket holding it,
+     * capped at the largest recorded value.
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, upperEdge(i));
+        }
+        return max;
+    }
+
+    // Values below SUB_BUCKETS map one-to-one; above that, the top SUB_BUCKET_BITS bits of the value
+    // (whose leading bit is always set) pick one of SUB_BUCKETS / 2 sub-buckets per power of two.
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS / 2;
+        return magnitude * (SUB_BUCKETS / 2) + SUB_BUCKETS / 2 + subBucket;
+    }
+
+    private static long upperEdge(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int magnitude = (index - SUB_BUCKETS / 2) / (SUB_BUCKETS / 2);
+        int subBucket = (index - SUB_BUCKETS / 2) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return (((long) subBucket + 1) << magnitude) - 1;
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Biggest movers between two years for one gender: rank rises and falls,
+ * count gains and losses, percent change, new entries and dropouts.
+ * The two years are joined in a single merge pass over their name-sorted
+ * indexes, and each category keeps only its top k with a bounded heap.
+ */
+public class NameMovers {
+
+    /**
+     * One name's position in both years. A rank or count of 0 means the name
+     * was absent in that year.
+     */
+    public record Mover(String name, int fromRank, int toRank, int fromCount, int toCount) {
+        /** Positive when the name moved up (its rank number got smaller). */
+        public int rankDelta() { return fromRank - toRank; }
+        public int countDelta() { return toCount - fromCount; }
+        public double percentChange() { return fromCount == 0 ? 0.0 : 100.0 * (toCount - fromCount) / fromCount; }
+    }
+
+    private final int fromYear;
+    private final int toYear;
+    private final String gender;
+    private final List<Mover> rankRisers;
+    private final List<Mover> rankFallers;
+    private final List<Mover> countGainers;
+    private final List<Mover> countLosers;
+    private final List<Mover> percentGainers;
+    private final List<Mover> percentLosers;
+    private final List<Mover> newEntries;
+    private final List<Mover> dropouts;
+
+    private NameMovers(int fromYear, int toYear, String gender, TopK<Mover> rankRisers, TopK<Mover> rankFallers,
+                       TopK<Mover> countGainers, TopK<Mover> countLosers, TopK<Mover> percentGainers,
+                       TopK<Mover> percentLosers, TopK<Mover> newEntries, TopK<Mover> dropouts) {
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.gender = gender;
+        this.rankRisers = rankRisers.toList();
+        this.rankFallers = rankFallers.toList();
+        this.countGainers = countGainers.toList();
+        this.countLosers = countLosers.toList();
+        this.percentGainers = percentGainers.toList();
+        this.percentLosers = percentLosers.toList();
+        this.newEntries = newEntries.toList();
+        this.dropouts = dropouts.toList();
+    }
+
+    /**
+     * Joins the two years on name and keeps the top k movers in every category.
+     */
+    public static NameMovers compute(YearData from, YearData to, String gender, int k) {
+        // Ties are broken by name so the report is stable between runs.
+        Comparator<Mover> byName = Comparator.comparing(m -> m.name().toLowerCase());
+        TopK<Mover> rankRisers = new TopK<>(k, Comparator.comparingInt(Mover::rankDelta).reversed().thenComparing(byName));
+        TopK<Mover> rankFallers = new TopK<>(k, Comparator.comparingInt(Mover::rankDelta).thenComparing(byName));
+        TopK<Mover> countGainers = new TopK<>(k, Comparator.comparingInt(Mover::countDelta).reversed().thenComparing(byName));
+        TopK<Mover> countLosers = new TopK<>(k, Comparator.comparingInt(Mover::countDelta).thenComparing(byName));
+        TopK<Mover> percentGainers = new TopK<>(k, Comparator.comparingDouble(Mover::percentChange).reversed().thenComparing(byName));
+        TopK<Mover> percentLosers = new TopK<>(k, Comparator.comparingDouble(Mover::percentChange).thenComparing(byName));
+        TopK<Mover> newEntries = new TopK<>(k, Comparator.comparingInt(Mover::toCount).reversed().thenComparing(byName));
+        TopK<Mover> dropouts = new TopK<>(k, Comparator.comparingInt(Mover::fromCount).reversed().thenComparing(byName));
+
+        String[] fromNames = from.getNames(gender);
+        String[] toNames = to.getNames(gender);
+        int[] fromCounts = from.getCounts(gender);
+        int[] toCounts = to.getCounts(gender);
+        String[] fromKeys = from.getNameKeys(gender);
+        String[] toKeys = to.getNameKeys(gender);
+        int[] fromOrder = from.getNameOrder(gender);
+        int[] toOrder = to.getNameOrder(gender);
+
+        int i = 0;
+        int j = 0;
+        while (i < fromOrder.length || j < toOrder.length) {
+            int cmp;
+            if (i == fromOrder.length) cmp = 1;
+            else if (j == toOrder.length) cmp = -1;
+            else cmp = fromKeys[fromOrder[i]].compareTo(toKeys[toOrder[j]]);
+
+            if (cmp < 0) {
+                int a = fromOrder[i++];
+                dropouts.offer(new Mover(fromNames[a], a + 1, 0, fromCounts[a], 0));
+            } else if (cmp > 0) {
+                int b = toOrder[j++];
+                newEntries.offer(new Mover(toNames[b], 0, b + 1, 0, toCounts[b]));
+            } else {
+                int a = fromOrder[i++];
+                int b = toOrder[j++];
+                Mover mover = new Mover(toNames[b], a + 1, b + 1, fromCounts[a], toCounts[b]);
+                rankRisers.offer(mover);
+                rankFallers.offer(mover);
+                countGainers.offer(mover);
+                countLosers.offer(mover);
+                percentGainers.offer(mover);
+                percentLosers.offer(mover);
+            }
+        }
+        return new NameMovers(from.getYear(), to.getYear(), gender, rankRisers, rankFallers, countGainers,
+                              countLosers, percentGainers, percentLosers, newEntries, dropouts);
+    }
+
+    public int getFromYear() { return fromYear; }
+    public int getToYear() { return toYear; }
+    public String getGender() { return gender; }
+    public List<Mover> getRankRisers() { return rankRisers; }
+    public List<Mover> getRankFallers() { return rankFallers; }
+    public List<Mover> getCountGainers() { return countGainers; }
+    public List<Mover> getCountLosers() { return countLosers; }
+    public List<Mover> getPercentGainers() { return percentGainers; }
+    public List<Mover> getPercentLosers() { return percentLosers; }
+    public List<Mover> getNewEntries() { return newEntries; }
+    public List<Mover> getDropouts() { return dropouts; }
+
+    /**
+     * Prints every category as a tab-separated table.
+     */
+    public void print() {
+        System.out.println("\n==== Biggest Movers (" + gender + ") " + fromYear + " -> " + toYear + " ====");
+        printSection("Biggest Rank Rises", rankRisers);
+        printSection("Biggest Rank Falls", rankFallers);
+        printSection("Biggest Count Gains", countGainers);
+        printSection("Biggest Count Losses", countLosers);
+        printSection("Biggest Percent Gains", percentGainers);
+        printSection("Biggest Percent Losses", percentLosers);
+        printSection("New Entries", newEntries);
+        printSection("Dropouts", dropouts);
+        System.out.println("======================================");
+    }
+
+    private void printSection(String title, List<Mover> movers) {
+        System.out.println("\n  --- " + title + " ---");
+        System.out.println("Name\t" + fromYear + " Rank\t" + toYear + " Rank\t" + fromYear + " Count\t" + toYear + " Count\tChange %");
+        if (movers.isEmpty()) {
+            System.out.println("None.");
+            return;
+        }
+        for (Mover m : movers) {
+            String percent = m.fromCount() == 0 ? "new" : String.format("%.1f", m.percentChange());
+            System.out.println(m.name() + "\t" + m.fromRank() + "\t" + m.toRank() + "\t" + m.fromCount() + "\t" + m.toCount() + "\t" + percent);
+        }
+    }
+}
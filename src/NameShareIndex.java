@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "what fraction of 1990 girls were named Jessica" style questions.
+ * For each year and gender it caches the total births, a prefix sum of the
+ * counts in rank order, and the rank range of each run of tied counts. Each is
+ * built with one pass over the year's counts, the first time the year is asked
+ * about. After that every query is a rank lookup plus a few array reads, i.e.
+ * O(1) per year, and a series over a range of years is O(years).
+ */
+public class NameShareIndex {
+
+    /** One year of a name's popularity; rank is -1 and the rest 0 if the name is absent that year. */
+    public record YearShare(int year, int rank, int births, double share, double cumulativeShare, double percentileRank) {
+    }
+
+    private final BabyNameCorpus corpus;
+    private final Map<Integer, YearStats> stats = new ConcurrentHashMap<>();
+
+    public NameShareIndex(BabyNameCorpus corpus) {
+        this.corpus = corpus;
+    }
+
+    /**
+     * Fraction of the gender's births in the year that went to the name (0 if it is absent),
+     * or -1 if the year is not available.
+     */
+    public double share(String name, int year, String gender) {
+        YearShare share = yearShare(name, year, gender);
+        return share == null ? -1 : share.share();
+    }
+
+    /**
+     * Fraction of the gender's births in the year that went to the name or a name ranked above it,
+     * or -1 if the year or the name is not available.
+     */
+    public double cumulativeShare(String name, int year, String gender) {
+        YearShare share = yearShare(name, year, gender);
+        return share == null || share.rank() == -1 ? -1 : share.cumulativeShare();
+    }
+
+    /**
+     * Percentile rank (0-100) of the name among the gender's names in the year: the percentage of
+     * names with fewer births, counting names tied with it as half below. Returns -1 if the year
+     * or the name is not available.
+     */
+    public double percentileRank(String name, int year, String gender) {
+        YearShare share = yearShare(name, year, gender);
+        return share == null || share.rank() == -1 ? -1 : share.percentileRank();
+    }
+
+    /**
+     * The name's popularity in every available year from startYear to endYear (inclusive), in year order.
+     */
+    public List<YearShare> series(String name, String gender, int startYear, int endYear) {
+        List<YearShare> series = new ArrayList<>();
+        if (corpus.isEmpty() || startYear > endYear) return series;
+        for (int year = Math.max(startYear, corpus.firstYear()); year <= Math.min(endYear, corpus.lastYear()); year++) {
+            YearShare share = yearShare(name, year, gender);
+            if (share != null) series.add(share);
+        }
+        return series;
+    }
+
+    /**
+     * The name's popularity in the year, or null if the year is not available.
+     */
+    public YearShare yearShare(String name, int year, String gender) {
+        YearData yearData = corpus.getYear(year);
+        if (yearData == null) return null;
+        GenderStats g = statsFor(yearData).forGender(gender);
+        int rank = yearData.getRank(name, gender);
+        if (g == null || rank == -1 || g.total == 0) return new YearShare(year, -1, 0, 0, 0, 0);
+        int births = yearData.getCount(rank, gender);
+        int names = g.tieEnd.length;
+        // Ranks tieStart..tieEnd share this name's count: names below are strictly less popular.
+        int below = names - g.tieEnd[rank - 1];
+        int tied = g.tieEnd[rank - 1] - g.tieStart[rank - 1] + 1;
+        return new YearShare(year, rank, births, (double) births / g.total, (double) g.prefix[rank] / g.total,
+                             100.0 * (below + 0.5 * tied) / names);
+    }
+
+    /** Total births for the gender in the year (cached), or -1 if the year is not available. */
+    public long totalBirths(int year, String gender) {
+        YearData yearData = corpus.getYear(year);
+        if (yearData == null) return -1;
+        GenderStats g = statsFor(yearData).forGender(gender);
+        return g == null ? 0 : g.total;
+    }
+
+    private YearStats statsFor(YearData yearData) {
+        return stats.computeIfAbsent(yearData.getYear(), year -> new YearStats(yearData));
+    }
+
+    private static class YearStats {
+        private final GenderStats female;
+        private final GenderStats male;
+
+        YearStats(YearData yearData) {
+            this.female = new GenderStats(yearData.getCounts("F"));
+            this.male = new GenderStats(yearData.getCounts("M"));
+        }
+
+        GenderStats forGender(String gender) {
+            if (YearData.isFemale(gender)) return female;
+            if (gender.equalsIgnoreCase("M")) return male;
+            return null;
+        }
+    }
+
+    /**
+     * prefix[r] is the births of ranks 1..r; tieStart/tieEnd[r - 1] are the first and last rank
+     * with the same count as rank r. Counts are in descending order, so ties are contiguous.
+     */
+    private static class GenderStats {
+        private final long[] prefix;
+        private final int[] tieStart;
+        private final int[] tieEnd;
+        private final long total;
+
+        GenderStats(int[] counts) {
+            prefix = new long[counts.length + 1];
+            tieStart = new int[counts.length];
+            tieEnd = new int[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                prefix[i + 1] = prefix[i] + counts[i];
+                tieStart[i] = i > 0 && counts[i] == counts[i - 1] ? tieStart[i - 1] : i + 1;
+            }
+            for (int i = counts.length - 1; i >= 0; i--) {
+                tieEnd[i] = i < counts.length - 1 && counts[i] == counts[i + 1] ? tieEnd[i + 1] : i + 1;
+            }
+            total = prefix[counts.length];
+        }
+    }
+}
@@ -0,0 +1,220 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.codec.EncoderException;
+import org.apache.commons.codec.StringEncoder;
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.codec.language.Soundex;
+
+/**
+ * Groups spelling variants that sound alike (Aiden/Aidan/Ayden) using a
+ * phonetic encoder from commons-codec. Every distinct name is encoded once
+ * while the index is built; each group then carries its per-year total
+ * births and per-year rank among groups, so group queries never re-encode
+ * the corpus.
+ */
+public class PhoneticNameIndex {
+
+    /** Which commons-codec encoder defines a group. */
+    public enum Encoding {
+        DOUBLE_METAPHONE, SOUNDEX
+    }
+
+    // How many member spellings to show in a group label.
+    private static final int LABEL_SPELLINGS = 3;
+    // Double Metaphone stops at 4 characters by default, which lumps Christopher with Christina
+    // and Alexander with Alexa; 12 covers whole names.
+    private static final int MAX_CODE_LENGTH = 12;
+
+    private final StringEncoder encoder;
+    private final int firstYear;
+    private final GenderGroups female;
+    private final GenderGroups male;
+
+    public PhoneticNameIndex(BabyNameCorpus corpus, Encoding encoding) {
+        this.encoder = encoding == Encoding.SOUNDEX ? new Soundex() : doubleMetaphone();
+        this.firstYear = corpus.firstYear();
+        int yearCount = corpus.isEmpty() ? 0 : corpus.lastYear() - firstYear + 1;
+        this.female = new GenderGroups(corpus, "F", yearCount);
+        this.male = new GenderGroups(corpus, "M", yearCount);
+    }
+
+    private static DoubleMetaphone doubleMetaphone() {
+        DoubleMetaphone encoder = new DoubleMetaphone();
+        encoder.setMaxCodeLen(MAX_CODE_LENGTH);
+        return encoder;
+    }
+
+    /** The phonetic code for a name, or the lower-cased name if it cannot be encoded. */
+    public String encode(String name) {
+        try {
+            String code = encoder.encode(name);
+            return code == null || code.isEmpty() ? name.toLowerCase() : code;
+        } catch (EncoderException | IllegalArgumentException e) {
+            return name.toLowerCase();
+        }
+    }
+
+    /**
+     * Returns the spellings grouped with the name, most popular all-time first,
+     * or an empty list if no spelling with that sound was recorded.
+     */
+    public List<String> getGroupMembers(String name, String gender) {
+        GenderGroups groups = groupsFor(gender);
+        int group = groups == null ? -1 : groups.groupOf(name);
+        return group == -1 ? new ArrayList<>() : new ArrayList<>(groups.members.get(group));
+    }
+
+    /**
+     * Rank of the name's group among all groups of the gender in the year (1 = most births),
+     * or -1 if the group had no births that year.
+     */
+    public int getGroupRank(int year, String name, String gender) {
+        GenderGroups groups = groupsFor(gender);
+        int group = groups == null ? -1 : groups.groupOf(name);
+        int y = year - firstYear;
+        if (group == -1 || y < 0 || y >= groups.ranks.length) return -1;
+        int rank = groups.ranks[y][group];
+        return rank == 0 ? -1 : rank;
+    }
+
+    /** Total births for the name's group in the year, or 0 if none. */
+    public int getGroupCount(int year, String name, String gender) {
+        GenderGroups groups = groupsFor(gender);
+        int group = groups == null ? -1 : groups.groupOf(name);
+        int y = year - firstYear;
+        if (group == -1 || y < 0 || y >= groups.counts.length) return 0;
+        return groups.counts[y][group];
+    }
+
+    /**
+     * Year in which the name's group had its best (lowest) rank, or -1 if never ranked.
+     * Ties go to the earliest year.
+     */
+    public int yearOfHighestGroupRank(String name, String gender) {
+        GenderGroups groups = groupsFor(gender);
+        int group = groups == null ? -1 : groups.groupOf(name);
+        if (group == -1) return -1;
+        int bestRank = Integer.MAX_VALUE;
+        int bestYear = -1;
+        for (int y = 0; y < groups.ranks.length; y++) {
+            int rank = groups.ranks[y][group];
+            if (rank != 0 && rank < bestRank) {
+                bestRank = rank;
+                bestYear = firstYear + y;
+            }
+        }
+        return bestYear;
+    }
+
+    /**
+     * All-time group ranking for the gender, most births first. Each entry is labelled with
+     * its most popular spellings, e.g. "Aiden/Aidan/Ayden".
+     */
+    public List<ProcessBabyNames.NameCount> allTimeGroupRankings(String gender) {
+        GenderGroups groups = groupsFor(gender);
+        List<ProcessBabyNames.NameCount> result = new ArrayList<>();
+        if (groups == null) return result;
+        for (int group = 0; group < groups.allTime.length; group++) {
+            result.add(new ProcessBabyNames.NameCount(groups.label(group), groups.allTime[group]));
+        }
+        result.sort(Comparator.naturalOrder());
+        return result;
+    }
+
+    private GenderGroups groupsFor(String gender) {
+        if (gender.equalsIgnoreCase("F")) return female;
+        if (gender.equalsIgnoreCase("M")) return male;
+        return null;
+    }
+
+    /**
+     * Groups for one gender. counts[y][g] and ranks[y][g] are indexed by
+     * (year - firstYear) and group id; a rank of 0 means no births that year.
+     */
+    private class GenderGroups {
+        // Lower-cased spelling -> group id, and phonetic code -> group id.
+        final Map<String, Integer> groupBySpelling = new HashMap<>();
+        final Map<String, Integer> groupByCode = new HashMap<>();
+        // Member spellings per group, most popular all-time first.
+        final List<List<String>> members = new ArrayList<>();
+        final int[][] counts;
+        final int[][] ranks;
+        final int[] allTime;
+
+        GenderGroups(BabyNameCorpus corpus, String gender, int yearCount) {
+            // Encode each distinct spelling once and assign group ids.
+            Map<String, Integer> spellingTotals = new HashMap<>();
+            for (YearData yearData : corpus.years().values()) {
+                String[] names = yearData.getNames(gender);
+                int[] yearCounts = yearData.getCounts(gender);
+                for (int i = 0; i < names.length; i++) {
+                    String key = names[i].toLowerCase();
+                    if (!groupBySpelling.containsKey(key)) {
+                        String code = encode(names[i]);
+                        Integer group = groupByCode.get(code);
+                        if (group == null) {
+                            group = members.size();
+                            groupByCode.put(code, group);
+                            members.add(new ArrayList<>());
+                        }
+                        groupBySpelling.put(key, group);
+                        members.get(group).add(names[i]);
+                    }
+                    spellingTotals.merge(key, yearCounts[i], Integer::sum);
+                }
+            }
+
+            // Per-year group totals, then per-year ranks among groups.
+            int groupCount = members.size();
+            counts = new int[yearCount][];
+            ranks = new int[yearCount][];
+            allTime = new int[groupCount];
+            for (int y = 0; y < yearCount; y++) {
+                counts[y] = new int[groupCount];
+                ranks[y] = new int[groupCount];
+                YearData yearData = corpus.getYear(firstYear + y);
+                if (yearData == null) continue;
+                String[] names = yearData.getNames(gender);
+                int[] yearCounts = yearData.getCounts(gender);
+                for (int i = 0; i < names.length; i++) {
+                    int group = groupBySpelling.get(names[i].toLowerCase());
+                    counts[y][group] += yearCounts[i];
+                    allTime[group] += yearCounts[i];
+                }
+                rankYear(counts[y], ranks[y]);
+            }
+            for (List<String> spellings : members) {
+                spellings.sort(Comparator.comparing((String s) -> spellingTotals.get(s.toLowerCase())).reversed());
+            }
+        }
+
+        int groupOf(String name) {
+            Integer group = groupBySpelling.get(name.toLowerCase());
+            if (group == null) group = groupByCode.get(encode(name));
+            return group == null ? -1 : group;
+        }
+
+        String label(int group) {
+            List<String> spellings = members.get(group);
+            return String.join("/", spellings.subList(0, Math.min(LABEL_SPELLINGS, spellings.size())));
+        }
+
+        // Ranks groups with births by count, highest first; ties go to the lower group id.
+        private void rankYear(int[] yearCounts, int[] yearRanks) {
+            Integer[] order = new Integer[yearCounts.length];
+            int present = 0;
+            for (int g = 0; g < yearCounts.length; g++) {
+                if (yearCounts[g] > 0) order[present++] = g;
+            }
+            Arrays.sort(order, 0, present, (a, b) -> yearCounts[a] != yearCounts[b]
+                    ? Integer.compare(yearCounts[b], yearCounts[a]) : Integer.compare(a, b));
+            for (int r = 0; r < present; r++) {
+                yearRanks[order[r]] = r + 1;
+            }
+        }
+    }
+}
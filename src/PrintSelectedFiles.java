@@ -2,6 +2,8 @@
 import edu.duke.*;
 import org.apache.commons.csv.*;
 import java.io.File; // Needed for iterating through selected files
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class PrintSelectedFiles {
 
@@ -10,6 +12,14 @@ public class PrintSelectedFiles {
      * Assumes the CSV files do not have a header row.
      */
     public void printFiles() {
+        printFiles(RankedOutput.toStdout(RankedOutput.Format.TAB));
+    }
+
+    /**
+     * Same as printFiles(), but writes the records to the given output (e.g. a CSV file),
+     * buffered in large chunks instead of one println per record. Closes the output.
+     */
+    public void printFiles(RankedOutput out) {
         // 1. Create a DirectoryResource object. This will open a file selection dialog.
         System.setProperty("user.dir", "C:\\Users\\inouy\\Downloads\\us_babynames_small\\testing"); // Example path structure
 
@@ -35,11 +45,26 @@ public class PrintSelectedFiles {
                 String gender = record.get(1);
                 String numBorn = record.get(2);
 
-                // 7. Print the data from the current record, separated by tabs for readability.
-                System.out.println(name + "\t" + gender + "\t" + numBorn);
+                // 7. Write the data from the current record (tab-separated for the console).
+                out.beginRow(); out.field(name); out.field(gender); out.field(numBorn); out.endRow();
             }
+            flush(out);
             System.out.println("---- Finished file: " + f.getName() + " ----\n");
         }
+        try {
+            out.close();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error writing records: " + e.getMessage());
+        }
+    }
+
+    // Writes buffered records before the next console line so the two stay in order.
+    private static void flush(RankedOutput out) {
+        try {
+            out.flush();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error writing records: " + e.getMessage());
+        }
     }
 
     /**
@@ -1,15 +1,23 @@
 // Standard Java I/O and NIO imports
 import java.io.File;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 // Standard Java Collections imports
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.ObjIntConsumer;
 // NOTE: Comparator is NOT needed if NameCount implements Comparable
 // import java.util.Comparator;
 import java.util.Scanner;
@@ -39,10 +47,65 @@ public class ProcessBabyNames {
     // Using CSVFormat.DEFAULT is simplest for index-based access without headers.
     private static final CSVFormat CSV_INPUT_FORMAT = CSVFormat.DEFAULT;
 
+    // In-memory data, loaded on first use by the indexed queries below.
+    private BabyNameCorpus corpus;
+    private YearCatalog catalog;
+    // Where the data folder's catalog is kept between runs (in memory only when null).
+    private Path catalogFile = Paths.get(YearCatalog.CATALOG_FILE_NAME);
+    // Where per-record rows (opt-in, off when null) and all-time ranking tables (stdout when null) are written.
+    private RankedOutput verboseOutput;
+    private RankedOutput rankingOutput;
+    private boolean rankingHeaderWritten;
+    private Path arrowRankingPath;
+    private YearRangeIndex yearRangeIndex;
+    private PhoneticNameIndex phoneticIndex;
+    private NameShareIndex shareIndex;
+    private TrajectoryIndex femaleTrajectories;
+    private TrajectoryIndex maleTrajectories;
+    private UnisexNames unisexNames;
+
+    /** Reads data from DATA_FOLDER_PATH, loading each year on first use. */
+    public ProcessBabyNames() {
+    }
+
+    /** Answers queries from an already opened (and possibly pre-loaded) corpus. */
+    public ProcessBabyNames(BabyNameCorpus corpus) {
+        this.corpus = corpus;
+    }
+
+    /**
+     * Turns on the per-record dump in processAndAnalyzeFile and runAnalysis, written to the given
+     * output; null (the default) turns it off. Every file's records go into one "File, Rank, Name,
+     * Gender, Count" table with a single header. The caller closes the output.
+     */
+    public void setVerboseOutput(RankedOutput output) { this.verboseOutput = output; }
+
+    /**
+     * Sends the all-time ranking tables to the given output (e.g. a CSV or NDJSON file) instead of
+     * the console; null (the default) prints them to the console. The output gets a single
+     * "Gender, Rank, Name, Total Births" table in which Gender ("F", "M" or "all") tells the female,
+     * male and combined rankings apart. The caller closes the output.
+     */
+    public void setRankingOutput(RankedOutput output) { this.rankingOutput = output; this.rankingHeaderWritten = false; }
+
+    /**
+     * Keeps the data folder's catalog in the given file between runs (by default
+     * YearCatalog.CATALOG_FILE_NAME in the working directory), so the file summaries and
+     * printCatalogTotals only parse files that are new or changed and were not read by runAnalysis.
+     * null catalogs the folder in memory and writes nothing.
+     */
+    public void setCatalogFile(Path file) { this.catalogFile = file; this.catalog = null; }
+
+    /**
+     * Writes the all-time rankings to this Arrow IPC file (see ArrowExport) instead of printing them;
+     * null (the default) prints them.
+     */
+    public void setArrowRankingPath(Path path) { this.arrowRankingPath = path; }
+
     // --- Helper Record for Sorting ---
     record NameCount(String name, int count) implements Comparable<NameCount> {
         @Override
-        public int compareTo(NameCount other) { return Integer.compare(other.count, this.count); } // Descending
+        public int compareTo(NameCount other) { int byCount = Integer.compare(other.count, this.count); return byCount != 0 ? byCount : this.name.compareTo(other.name); } // Descending, ties by name
     }
 
     // --- Method 1: printFileSummary ---
@@ -62,31 +125,50 @@ public class ProcessBabyNames {
 
         String filename = selectedFile.getName();
         System.out.println("Generating summary for: " + filename);
-        int totalBirths = 0; int totalGirlsNames = 0; int totalBoysNames = 0; int totalNames = 0;
+        // Read from the catalog file if it is current there; otherwise only the selected file is parsed.
+        try {
+            YearCatalog.Entry entry = YearCatalog.summarize(selectedFile, catalogFile);
+            printSummary(filename, entry.totalBirths(), entry.femaleRows(), entry.maleRows(), entry.totalRows());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + filename + " - " + e.getMessage());
+        }
+        System.out.println("==============================");
+    }
 
-        // Use try-with-resources for automatic closing
-        try (Reader reader = Files.newBufferedReader(selectedFile.toPath());
-             CSVParser parser = CSV_INPUT_FORMAT.parse(reader)) { // Use format.parse(reader)
+    /**
+     * Prints the summary for one year straight from the data folder's catalog, without a file dialog.
+     * The CSV is read only if it is new or changed since it was cataloged.
+     */
+    public void printFileSummary(int year) {
+        System.out.println("\n==== File Summary for " + year + " ====");
+        YearCatalog.Entry entry = getCatalog().get(year, FILE_SUFFIX);
+        if (entry == null) { System.out.println("No yob" + year + FILE_SUFFIX + " file found in " + DATA_FOLDER_PATH + "."); }
+        else { printSummary(entry.fileName(), entry.totalBirths(), entry.femaleRows(), entry.maleRows(), entry.totalRows()); System.out.println("    Largest Count:       " + entry.maxCount()); System.out.println("    Smallest Count:      " + entry.minCount()); }
+        System.out.println("==============================");
+    }
 
-            for (CSVRecord record : parser) {
-                totalNames++;
-                int currentBirths = 0;
-                try { currentBirths = Integer.parseInt(record.get(2)); }
-                catch (NumberFormatException nfe) { System.err.println("Warning: Could not parse number in record: " + record + " in " + filename); }
-                totalBirths += currentBirths;
-                String gender = record.get(1);
-                if (gender.equalsIgnoreCase("F")) { totalGirlsNames++; }
-                else if (gender.equalsIgnoreCase("M")) { totalBoysNames++; }
-                else { System.err.println("Warning: Unexpected gender value '" + gender + "' in record: " + record + " in " + filename); }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading file: " + filename + " - " + e.getMessage());
+    /**
+     * Prints grand totals over every year in the data folder from the catalog alone.
+     */
+    public void printCatalogTotals() {
+        long births = 0; long girls = 0; long boys = 0; long rows = 0; long bytes = 0; int maxCount = 0; int maxYear = -1;
+        Map<Integer, YearCatalog.Entry> years = getCatalog().years(FILE_SUFFIX);
+        for (YearCatalog.Entry entry : years.values()) {
+            births += entry.totalBirths(); girls += entry.femaleRows(); boys += entry.maleRows(); rows += entry.totalRows(); bytes += entry.size();
+            if (entry.maxCount() > maxCount) { maxCount = entry.maxCount(); maxYear = entry.year(); }
         }
-        // Print Summary
+        System.out.println("\n==== Catalog Totals Across " + years.size() + " File(s) ====");
+        System.out.println("  Grand Total Births:        " + births); System.out.println("  Grand Total Girl Names:    " + girls);
+        System.out.println("  Grand Total Boy Names:     " + boys); System.out.println("  Grand Total Distinct Names:" + rows);
+        System.out.println("  Largest Single Count:      " + maxCount + (maxYear == -1 ? "" : " (" + maxYear + ")")); System.out.println("  Total File Size (bytes):   " + bytes);
+        System.out.println("======================================");
+    }
+
+    private void printSummary(String filename, long totalBirths, int totalGirlsNames, int totalBoysNames, int totalNames) {
         System.out.println("  --- Summary for " + filename + " ---");
         System.out.println("    Total Births:        " + totalBirths); System.out.println("    Distinct Girl Names: " + totalGirlsNames);
         System.out.println("    Distinct Boy Names:  " + totalBoysNames); System.out.println("    Total Distinct Names:" + totalNames);
-        System.out.println("  -----------------------------"); System.out.println("==============================");
+        System.out.println("  -----------------------------");
     }
 
     // --- Method 2: getRank ---
@@ -95,22 +177,9 @@ public class ProcessBabyNames {
      * Rank 1 is the most popular name for that gender.
      */
     public int getRank(int year, String name, String gender) {
-        String yearFilename = String.format("yob%d%s", year, FILE_SUFFIX);
-        String fullPath = DATA_FOLDER_PATH + File.separator + yearFilename;
-        int rank = 0; boolean found = false;
-
-        try (Reader reader = Files.newBufferedReader(Paths.get(fullPath));
-             CSVParser parser = CSV_INPUT_FORMAT.parse(reader)) { // Use format.parse(reader)
-            for (CSVRecord record : parser) {
-                if (record.get(1).equalsIgnoreCase(gender)) {
-                    rank++;
-                    if (record.get(0).equalsIgnoreCase(name)) {
-                        found = true; break;
-                    }
-                }
-            }
-        } catch (IOException e) { return -1; } // File not found or error
-        return found ? rank : -1;
+        YearData yearData = getCorpus().getYear(year);
+        if (yearData == null) { return -1; } // File not found or error
+        return yearData.getRank(name, gender);
     }
 
     // --- Method 3: getName ---
@@ -119,21 +188,9 @@ public class ProcessBabyNames {
      * Rank 1 is the most popular name.
      */
      public String getName(int year, int rank, String gender) {
-        if (rank < 1) return "NO NAME";
-        String yearFilename = String.format("yob%d%s", year, FILE_SUFFIX);
-        String fullPath = DATA_FOLDER_PATH + File.separator + yearFilename;
-        int currentRank = 0;
-
-        try (Reader reader = Files.newBufferedReader(Paths.get(fullPath));
-             CSVParser parser = CSV_INPUT_FORMAT.parse(reader)) { // Use format.parse(reader)
-            for (CSVRecord record : parser) {
-                if (record.get(1).equalsIgnoreCase(gender)) {
-                    currentRank++;
-                    if (currentRank == rank) { return record.get(0); }
-                }
-            }
-        } catch (IOException e) { return "NO NAME"; } // File not found or error
-        return "NO NAME"; // Rank not found
+        YearData yearData = getCorpus().getYear(year);
+        if (yearData == null) { return "NO NAME"; } // File not found or error
+        return yearData.getName(rank, gender); // "NO NAME" if rank not found
     }
 
     // --- Method 4: whatIsNameInYear ---
@@ -142,6 +199,7 @@ public class ProcessBabyNames {
      * Prints the result to the console.
      */
     public void whatIsNameInYear(String name, int year, int newYear, String gender) {
+        getCorpus().prefetch(newYear); // Load the target year in the background while the first year is looked up
         int originalRank = getRank(year, name, gender); if (originalRank == -1) { System.out.println("Could not find rank for " + name + " (" + gender + ") in " + year + "."); return; }
         String newName = getName(newYear, originalRank, gender); if (newName.equals("NO NAME")) { System.out.println("No name found at rank " + originalRank + " for gender " + gender + " in " + newYear + "."); return; }
         String pronoun = gender.equalsIgnoreCase("F") ? "she" : "he"; System.out.println(name + " born in " + year + " would be " + newName + " if " + pronoun + " was born in " + newYear + ".");
@@ -149,17 +207,32 @@ public class ProcessBabyNames {
 
     // --- Method 5: processAndAnalyzeFile ---
     /**
-     * Processes a single baby name CSV file: prints ranked data, updates aggregation maps, returns summary totals.
+     * Processes a single baby name CSV file: updates aggregation maps, returns summary totals,
+     * and writes the ranked data if a verbose output is set.
      */
     public int[] processAndAnalyzeFile(File fileToProcess, String filename,
                                        Map<String, Integer> femaleTotalsMap,
                                        Map<String, Integer> maleTotalsMap,
                                        Map<String, Integer> combinedTotalsMap) {
+        return processAndAnalyzeFile(fileToProcess, filename,
+                                     (name, births) -> femaleTotalsMap.merge(name, births, Integer::sum),
+                                     (name, births) -> maleTotalsMap.merge(name, births, Integer::sum),
+                                     (name, births) -> combinedTotalsMap.merge(name, births, Integer::sum));
+    }
+
+    /**
+     * Same as above, but adds each name's births to the given totals sinks instead of maps,
+     * so the totals can live somewhere other than the heap (see SpillingNameTotals).
+     */
+    public int[] processAndAnalyzeFile(File fileToProcess, String filename,
+                                       ObjIntConsumer<String> femaleTotals,
+                                       ObjIntConsumer<String> maleTotals,
+                                       ObjIntConsumer<String> combinedTotals) {
         int totalBirths = 0; int totalGirlsNames = 0; int totalBoysNames = 0; int totalNames = 0;
         int[] results = new int[4]; int rankF = 0; int rankM = 0;
 
-        System.out.println("Ranked Data for " + filename + ":");
-        System.out.println("Rank\tName\tGender\tCount"); System.out.println("--------------------------------------");
+        RankedOutput verbose = verboseOutput;
+        if (verbose != null) { verbose.headerOnce(IngestPipeline.VERBOSE_COLUMNS); }
 
         try (Reader reader = Files.newBufferedReader(fileToProcess.toPath());
              CSVParser parser = CSV_INPUT_FORMAT.parse(reader)) { // Use format.parse(reader)
@@ -170,13 +243,14 @@ public class ProcessBabyNames {
                 catch (NumberFormatException e) { System.err.println("Warning: Could not parse number '" + numBornStr + "' in record: " + record + " in file: " + filename); }
                 totalBirths += currentBirths;
 
-                if (gender.equalsIgnoreCase("F")) { rankF++; currentRank = rankF; totalGirlsNames++; if (currentBirths > 0) femaleTotalsMap.put(name, femaleTotalsMap.getOrDefault(name, 0) + currentBirths); }
-                else if (gender.equalsIgnoreCase("M")) { rankM++; currentRank = rankM; totalBoysNames++; if (currentBirths > 0) maleTotalsMap.put(name, maleTotalsMap.getOrDefault(name, 0) + currentBirths); }
+                if (gender.equalsIgnoreCase("F")) { rankF++; currentRank = rankF; totalGirlsNames++; if (currentBirths > 0) femaleTotals.accept(name, currentBirths); }
+                else if (gender.equalsIgnoreCase("M")) { rankM++; currentRank = rankM; totalBoysNames++; if (currentBirths > 0) maleTotals.accept(name, currentBirths); }
                 else { System.err.println("Warning: Unexpected gender value '" + gender + "' in record: " + record + " in file: " + filename); currentRank = 0; }
-                if (currentBirths > 0) combinedTotalsMap.put(name, combinedTotalsMap.getOrDefault(name, 0) + currentBirths);
-                System.out.println(currentRank + "\t" + name + "\t" + gender + "\t" + numBornStr);
+                if (currentBirths > 0) combinedTotals.accept(name, currentBirths);
+                if (verbose != null) { verbose.beginRow(); verbose.field(filename); verbose.field(currentRank); verbose.field(name); verbose.field(gender); verbose.field(numBornStr); verbose.endRow(); }
             }
-        } catch (IOException e) { System.err.println("Error reading file: " + filename + " - " + e.getMessage()); }
+            if (verbose != null) { verbose.flush(); }
+        } catch (IOException | UncheckedIOException e) { System.err.println("Error reading file: " + filename + " - " + e.getMessage()); }
         results[0] = totalBirths; results[1] = totalGirlsNames; results[2] = totalBoysNames; results[3] = totalNames;
         return results;
     }
@@ -187,28 +261,81 @@ public class ProcessBabyNames {
      * grand totals, and all-time ranking.
      */
     public void runAnalysis() {
-        int grandTotalBirths = 0; int grandTotalGirlsNames = 0; int grandTotalBoysNames = 0; int grandTotalNames = 0;
-        Map<String, Integer> femaleTotalsAllTime = new HashMap<>(); Map<String, Integer> maleTotalsAllTime = new HashMap<>(); Map<String, Integer> combinedTotalsAllTime = new HashMap<>();
+        runAnalysis(0);
+    }
 
+    /**
+     * Same as runAnalysis(), but when maxNamesInMemory is positive the all-time totals are
+     * held in SpillingNameTotals: at most that many names per ranking stay in memory, the
+     * rest are spilled to sorted temp files and merged for the final ranking.
+     * The printed rankings are identical to the in-memory path.
+     */
+    public void runAnalysis(int maxNamesInMemory) {
         File[] selectedFiles = selectMultipleFiles("Select Baby Name Data File(s) for Analysis");
         int filesProcessed = selectedFiles.length;
         if (filesProcessed == 0) { System.out.println("No files were selected or processed."); return; }
 
-        for (File f : selectedFiles) {
-             System.out.println("\n==== Processing file: " + f.getName() + " ====");
-             int[] fileResults = processAndAnalyzeFile(f, f.getName(), femaleTotalsAllTime, maleTotalsAllTime, combinedTotalsAllTime);
-             System.out.println("  --- Summary for " + f.getName() + " ---");
-             System.out.println("    Total Births:        " + fileResults[0]); System.out.println("    Distinct Girl Names: " + fileResults[1]);
-             System.out.println("    Distinct Boy Names:  " + fileResults[2]); System.out.println("    Total Distinct Names:" + fileResults[3]);
-             System.out.println("  ------------------------------------");
-             grandTotalBirths += fileResults[0]; grandTotalGirlsNames += fileResults[1]; grandTotalBoysNames += fileResults[2]; grandTotalNames += fileResults[3];
+        if (maxNamesInMemory <= 0) {
+            Map<String, Integer> femaleTotalsAllTime = new HashMap<>(); Map<String, Integer> maleTotalsAllTime = new HashMap<>(); Map<String, Integer> combinedTotalsAllTime = new HashMap<>();
+            runPipeline(selectedFiles, new IngestPipeline((name, births) -> femaleTotalsAllTime.merge(name, births, Integer::sum), (name, births) -> maleTotalsAllTime.merge(name, births, Integer::sum), (name, births) -> combinedTotalsAllTime.merge(name, births, Integer::sum)));
+            printAllTimeRankings(femaleTotalsAllTime, maleTotalsAllTime, combinedTotalsAllTime, filesProcessed);
+            return;
         }
+        // The spilling totals (and their temp files) exist only on this path.
+        try (SpillingNameTotals femaleSpill = new SpillingNameTotals(maxNamesInMemory); SpillingNameTotals maleSpill = new SpillingNameTotals(maxNamesInMemory); SpillingNameTotals combinedSpill = new SpillingNameTotals(maxNamesInMemory)) {
+            runPipeline(selectedFiles, new IngestPipeline(femaleSpill, maleSpill, combinedSpill));
+            printAllTimeRankings(femaleSpill.ranked(), maleSpill.ranked(), combinedSpill.ranked(), filesProcessed);
+        } catch (UncheckedIOException e) { System.err.println("Error spilling totals to disk: " + e.getMessage()); }
+    }
+
+    // Read, parse and aggregate run as overlapping pipeline stages; summaries print as each file finishes, then the grand totals.
+    private void runPipeline(File[] selectedFiles, IngestPipeline pipeline) {
+        int grandTotalBirths = 0; int grandTotalGirlsNames = 0; int grandTotalBoysNames = 0; int grandTotalNames = 0;
+        pipeline.setVerboseOutput(verboseOutput);
+        pipeline.setCatalog(loadCatalog()); // Catalogs the data folder's files as they are read
+        int[][] allResults = pipeline.run(selectedFiles, new IngestPipeline.Listener() {
+            @Override public void fileStarted(File f) { System.out.println("\n==== Processing file: " + f.getName() + " ===="); }
+            @Override public void fileFinished(File f, int[] fileResults) {
+                System.out.println("  --- Summary for " + f.getName() + " ---");
+                System.out.println("    Total Births:        " + fileResults[0]); System.out.println("    Distinct Girl Names: " + fileResults[1]);
+                System.out.println("    Distinct Boy Names:  " + fileResults[2]); System.out.println("    Total Distinct Names:" + fileResults[3]);
+                System.out.println("  ------------------------------------");
+            }
+        });
+        for (int[] fileResults : allResults) { grandTotalBirths += fileResults[0]; grandTotalGirlsNames += fileResults[1]; grandTotalBoysNames += fileResults[2]; grandTotalNames += fileResults[3]; }
 
+        System.out.println("\n==== Grand Totals Across " + selectedFiles.length + " File(s) ====");
+        System.out.println("  Grand Total Births:        " + grandTotalBirths); System.out.println("  Grand Total Girl Names:    " + grandTotalGirlsNames);
+        System.out.println("  Grand Total Boy Names:     " + grandTotalBoysNames); System.out.println("  Grand Total Distinct Names:" + grandTotalNames);
+        pipeline.printStageStats();
+        System.out.println("======================================");
+    }
+
+    // --- Method 6b: runShardedAnalysis ---
+    /**
+     * Same output as runAnalysis(), but the selected files are totaled by `workers` worker JVMs
+     * (see ShardedAnalysis) and the partial totals merged here. Per-file summaries are printed
+     * in file name order once all shards are in.
+     */
+    public void runShardedAnalysis(int workers) {
+        File[] selectedFiles = selectMultipleFiles("Select Baby Name Data File(s) for Sharded Analysis");
+        if (selectedFiles.length == 0) { System.out.println("No files were selected or processed."); return; }
+        ShardedAnalysis.Result result;
+        try { result = ShardedAnalysis.run(Arrays.asList(selectedFiles), workers, workers * 4); }
+        catch (IOException e) { System.err.println("Error running sharded analysis: " + e.getMessage()); return; }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); System.err.println("Sharded analysis interrupted."); return; }
+        long grandTotalBirths = 0; int grandTotalGirlsNames = 0; int grandTotalBoysNames = 0; int grandTotalNames = 0;
+        for (Map.Entry<String, int[]> entry : result.getFileResults().entrySet()) {
+            int[] fileResults = entry.getValue(); printSummary(entry.getKey(), fileResults[0], fileResults[1], fileResults[2], fileResults[3]);
+            grandTotalBirths += fileResults[0]; grandTotalGirlsNames += fileResults[1]; grandTotalBoysNames += fileResults[2]; grandTotalNames += fileResults[3];
+        }
+        if (!result.getFailedFiles().isEmpty()) { System.err.println("Warning: Left out after repeated failures: " + result.getFailedFiles()); }
+        int filesProcessed = result.getFileResults().size();
         System.out.println("\n==== Grand Totals Across " + filesProcessed + " File(s) ====");
         System.out.println("  Grand Total Births:        " + grandTotalBirths); System.out.println("  Grand Total Girl Names:    " + grandTotalGirlsNames);
         System.out.println("  Grand Total Boy Names:     " + grandTotalBoysNames); System.out.println("  Grand Total Distinct Names:" + grandTotalNames);
         System.out.println("======================================");
-        printAllTimeRankings(femaleTotalsAllTime, maleTotalsAllTime, combinedTotalsAllTime, filesProcessed);
+        printAllTimeRankings(result.getFemaleTotals(), result.getMaleTotals(), result.getCombinedTotals(), filesProcessed);
     }
 
     // --- Method 7: printAllTimeRankings ---
@@ -220,12 +347,65 @@ public class ProcessBabyNames {
         List<NameCount> maleList = new ArrayList<>(); for (Map.Entry<String, Integer> entry : maleMap.entrySet()) { maleList.add(new NameCount(entry.getKey(), entry.getValue())); }
         List<NameCount> combinedList = new ArrayList<>(); for (Map.Entry<String, Integer> entry : combinedMap.entrySet()) { combinedList.add(new NameCount(entry.getKey(), entry.getValue())); }
         Collections.sort(femaleList); Collections.sort(maleList); Collections.sort(combinedList);
-        System.out.println("\n==== All-Time Female Name Ranking (Across " + fileCount + " Files) ===="); System.out.println("Rank\tName\tTotal Births"); System.out.println("--------------------------------------"); if (femaleList.isEmpty()) { System.out.println("No female names found."); } else { for (int i = 0; i < femaleList.size(); i++) { NameCount nc = femaleList.get(i); System.out.println((i + 1) + "\t" + nc.name() + "\t" + nc.count()); } }
-        System.out.println("\n==== All-Time Male Name Ranking (Across " + fileCount + " Files) ===="); System.out.println("Rank\tName\tTotal Births"); System.out.println("--------------------------------------"); if (maleList.isEmpty()) { System.out.println("No male names found."); } else { for (int i = 0; i < maleList.size(); i++) { NameCount nc = maleList.get(i); System.out.println((i + 1) + "\t" + nc.name() + "\t" + nc.count()); } }
-        System.out.println("\n==== All-Time Combined Name Ranking (Across " + fileCount + " Files) ===="); System.out.println("Rank\tName\tTotal Births"); System.out.println("--------------------------------------"); if (combinedList.isEmpty()) { System.out.println("No names found."); } else { for (int i = 0; i < combinedList.size(); i++) { NameCount nc = combinedList.get(i); System.out.println((i + 1) + "\t" + nc.name() + "\t" + nc.count()); } }
+        printAllTimeRankings(femaleList.iterator(), maleList.iterator(), combinedList.iterator(), fileCount);
+    }
+
+    /**
+     * Prints already-ranked (most births first) female, male and combined totals.
+     */
+     private void printAllTimeRankings(Iterator<NameCount> female, Iterator<NameCount> male, Iterator<NameCount> combined, int fileCount) {
+        if (arrowRankingPath != null) {
+            try { long rows = ArrowExport.writeRankings(female, male, combined, arrowRankingPath); System.out.println("\nWrote all-time rankings (" + rows + " rows across " + fileCount + " files) to " + arrowRankingPath); }
+            catch (IOException e) { System.err.println("Error writing Arrow rankings: " + e.getMessage()); }
+            return;
+        }
+        System.out.println("\n==== All-Time Female Name Ranking (Across " + fileCount + " Files) ===="); printRanking(female, "F", "No female names found.");
+        System.out.println("\n==== All-Time Male Name Ranking (Across " + fileCount + " Files) ===="); printRanking(male, "M", "No male names found.");
+        System.out.println("\n==== All-Time Combined Name Ranking (Across " + fileCount + " Files) ===="); printRanking(combined, "all", "No names found.");
+        System.out.println("==========================================================");
+    }
+     private void printRanking(Iterator<NameCount> ranked, String gender, String emptyMessage) {
+        if (rankingOutput == null) { System.out.println("Rank\tName\tTotal Births"); System.out.println("--------------------------------------"); }
+        if (!ranked.hasNext()) { System.out.println(emptyMessage); return; }
+        RankedOutput out = rankingOutput != null ? rankingOutput : RankedOutput.toStdout(RankedOutput.Format.TAB); // Buffered; one write per 64K chars instead of per row
+        try {
+            if (rankingOutput != null && !rankingHeaderWritten) { out.header("Gender", "Rank", "Name", "Total Births"); rankingHeaderWritten = true; }
+            int rank = 0;
+            while (ranked.hasNext()) {
+                NameCount nc = ranked.next(); rank++;
+                if (rankingOutput != null) { out.beginRow(); out.field(gender); out.field(rank); out.field(nc.name()); out.field(nc.count()); out.endRow(); }
+                else { out.row(rank, nc.name(), nc.count()); }
+            }
+            out.flush();
+        } catch (IOException | UncheckedIOException e) { System.err.println("Error writing ranking: " + e.getMessage()); }
+    }
+
+    // --- Method 7b: runApproximateAnalysis ---
+    /**
+     * Like runAnalysis(), but the all-time rankings come from fixed-memory sketches
+     * (Space-Saving + Count-Min Sketch for the top names, HyperLogLog for distinct names)
+     * and only the top k are printed, each with its error bounds.
+     */
+    public void runApproximateAnalysis(int topK) {
+        File[] selectedFiles = selectMultipleFiles("Select Baby Name Data File(s) for Approximate Analysis");
+        if (selectedFiles.length == 0) { System.out.println("No files were selected or processed."); return; }
+        int tracked = Math.max(1000, topK * 10);
+        ApproximateNameTotals female = new ApproximateNameTotals(tracked, 0.0001, 0.01); ApproximateNameTotals male = new ApproximateNameTotals(tracked, 0.0001, 0.01); ApproximateNameTotals combined = new ApproximateNameTotals(tracked, 0.0001, 0.01);
+        for (File f : selectedFiles) { System.out.println("\n==== Processing file: " + f.getName() + " ===="); processAndAnalyzeFile(f, f.getName(), female, male, combined); }
+        printApproximateRanking("Female", female, topK, selectedFiles.length); printApproximateRanking("Male", male, topK, selectedFiles.length); printApproximateRanking("Combined", combined, topK, selectedFiles.length);
         System.out.println("==========================================================");
     }
 
+    private void printApproximateRanking(String label, ApproximateNameTotals totals, int topK, int fileCount) {
+        System.out.println("\n==== Approximate All-Time " + label + " Name Ranking (Across " + fileCount + " Files) ====");
+        System.out.println(String.format("  Distinct names: ~%d (+/- %.1f%%)   Total births: %d   Memory: ~%d KB", totals.estimateDistinctNames(), 100 * totals.distinctStandardError(), totals.totalBirths(), totals.memoryBytes() / 1024));
+        System.out.println(String.format("  Upper bounds are within %d births of the truth with %.0f%% confidence; names above %d births are guaranteed to appear.", totals.sketchErrorBound(), 100 * totals.sketchConfidence(), totals.heavyHitterThreshold()));
+        System.out.println("Rank\tName\tEst. Births\tMin Births\tMax Births"); System.out.println("--------------------------------------");
+        List<ApproximateNameTotals.Estimate> top = totals.top(topK);
+        if (top.isEmpty()) { System.out.println("No names found."); }
+        else { for (int i = 0; i < top.size(); i++) { ApproximateNameTotals.Estimate e = top.get(i); System.out.println((i + 1) + "\t" + e.name() + "\t" + e.estimate() + "\t" + e.lowerBound() + "\t" + e.upperBound()); } }
+    }
+
     // --- Method 8: yearOfHighestRank ---
     /**
      * Finds the year (among selected files) where the given name and gender
@@ -236,9 +416,7 @@ public class ProcessBabyNames {
         System.out.println("\nFinding year of highest rank for " + name + " (" + gender + ")");
         File[] selectedFiles = selectMultipleFiles("Select files to find highest rank year");
         if (selectedFiles.length == 0) { System.out.println("No files selected."); return -1; }
-
-        for (File f : selectedFiles) {
-            int currentYear = getYearFromFilename(f.getName()); if (currentYear == -1) { continue; }
+        for (int currentYear : prefetchYears(selectedFiles)) {
             int currentRank = getRank(currentYear, name, gender);
             if (currentRank != -1) {
                  System.out.println("  Found rank " + currentRank + " in year " + currentYear);
@@ -259,9 +437,7 @@ public class ProcessBabyNames {
         System.out.println("\nCalculating average rank for " + name + " (" + gender + ")");
         File[] selectedFiles = selectMultipleFiles("Select files to calculate average rank");
          if (selectedFiles.length == 0) { System.out.println("No files selected."); return -1.0; }
-
-        for (File f : selectedFiles) {
-            int currentYear = getYearFromFilename(f.getName()); if (currentYear == -1) { continue; }
+        for (int currentYear : prefetchYears(selectedFiles)) {
             int currentRank = getRank(currentYear, name, gender);
             if (currentRank != -1) {
                 System.out.println("  Found rank " + currentRank + " in year " + currentYear);
@@ -272,40 +448,301 @@ public class ProcessBabyNames {
         else { double average = totalRank / rankCount; System.out.println("Average rank across " + rankCount + " file(s): " + average); return average; }
     }
 
+    // --- Methods 8b/9b: yearOfHighestRank / getAverageRank over a year range ---
+    /**
+     * Same as yearOfHighestRank, but over every loaded year from startYear to endYear
+     * (inclusive) instead of a file dialog, and without printing. Returns -1 if not found
+     * or if startYear is after endYear.
+     */
+    public int yearOfHighestRank(String name, String gender, int startYear, int endYear) {
+        if (startYear > endYear) return -1;
+        int highestRankSoFar = Integer.MAX_VALUE; int yearOfHighestRank = -1;
+        for (YearData yearData : getCorpus().years().subMap(startYear, true, endYear, true).values()) {
+            int currentRank = yearData.getRank(name, gender);
+            if (currentRank != -1 && currentRank < highestRankSoFar) { highestRankSoFar = currentRank; yearOfHighestRank = yearData.getYear(); }
+        }
+        return yearOfHighestRank;
+    }
+
+    /**
+     * Same as getAverageRank, but over every loaded year from startYear to endYear
+     * (inclusive) instead of a file dialog, and without printing. Returns -1.0 if not found
+     * or if startYear is after endYear.
+     */
+    public double getAverageRank(String name, String gender, int startYear, int endYear) {
+        if (startYear > endYear) return -1.0;
+        double totalRank = 0.0; int rankCount = 0;
+        for (YearData yearData : getCorpus().years().subMap(startYear, true, endYear, true).values()) {
+            int currentRank = yearData.getRank(name, gender);
+            if (currentRank != -1) { totalRank += currentRank; rankCount++; }
+        }
+        return rankCount == 0 ? -1.0 : totalRank / rankCount;
+    }
+
     // --- Method 10: getTotalBirthsRankedHigher ---
     /**
      * Calculates the total number of births for names of the same gender
      * ranked higher than the given name in a specific year.
      */
     public int getTotalBirthsRankedHigher(int year, String name, String gender) {
-        String yearFilename = String.format("yob%d%s", year, FILE_SUFFIX);
-        String fullPath = DATA_FOLDER_PATH + File.separator + yearFilename;
-        int totalBirthsHigher = 0; boolean targetFound = false;
-
         System.out.println("\nCalculating total births ranked higher than " + name + " (" + gender + ") in " + year);
+        YearData yearData = getCorpus().getYear(year);
+        if (yearData == null) { System.err.println("Error reading data for " + year + " in getTotalBirthsRankedHigher."); return -1; }
 
-        try (Reader reader = Files.newBufferedReader(Paths.get(fullPath));
-             CSVParser parser = CSV_INPUT_FORMAT.parse(reader)) { // Use format.parse(reader)
-            for (CSVRecord record : parser) {
-                if (record.get(1).equalsIgnoreCase(gender)) {
-                    String currentName = record.get(0);
-                    if (currentName.equalsIgnoreCase(name)) { targetFound = true; break; }
-                    try { totalBirthsHigher += Integer.parseInt(record.get(2)); }
-                    catch (NumberFormatException e) { System.err.println("Warning: Could not parse number for " + currentName + " in getTotalBirthsRankedHigher"); }
-                }
-            }
-        } catch (IOException e) { System.err.println("Error reading file " + fullPath + " in getTotalBirthsRankedHigher: " + e.getMessage()); return -1; }
+        int rank = yearData.getRank(name, gender);
+        // If the name is missing, every name of that gender counts as ranked higher.
+        int higher = rank == -1 ? yearData.size(gender) : rank - 1;
+        int totalBirthsHigher = (int) yearData.getCountColumn(gender).sumRange(0, higher);
 
-        if (!targetFound) { System.out.println("Warning: Target name " + name + " (" + gender + ") not found in " + year + "."); }
+        if (rank == -1) { System.out.println("Warning: Target name " + name + " (" + gender + ") not found in " + year + "."); }
         System.out.println("Total births ranked higher: " + totalBirthsHigher);
         return totalBirthsHigher;
     }
 
-    // --- Helper Method: getYearFromFilename ---
-    private int getYearFromFilename(String filename) {
-        try { if (filename != null && filename.toLowerCase().startsWith("yob") && filename.length() >= 7) { return Integer.parseInt(filename.substring(3, 7)); } }
-        catch (NumberFormatException | IndexOutOfBoundsException e) { /* Fall through */ }
-        System.err.println("Warning: Could not parse year from filename: " + filename); return -1;
+    // --- Method 11: topNamesInYearRange ---
+    /**
+     * Returns the n most popular names for a gender between startYear and endYear (inclusive).
+     * Backed by per-name cumulative counts, so each range costs no re-aggregation of its years.
+     */
+    public List<NameCount> topNamesInYearRange(int startYear, int endYear, String gender, int n) {
+        return getYearRangeIndex().topNames(startYear, endYear, gender, n);
+    }
+
+    /**
+     * Prints the top n names for a gender between startYear and endYear (inclusive).
+     */
+    public void printTopNamesInYearRange(int startYear, int endYear, String gender, int n) {
+        List<NameCount> top = topNamesInYearRange(startYear, endYear, gender, n);
+        System.out.println("\n==== Top " + n + " " + (gender.equalsIgnoreCase("F") ? "Female" : "Male") + " Names " + startYear + "-" + endYear + " ====");
+        System.out.println("Rank\tName\tTotal Births"); System.out.println("--------------------------------------");
+        if (top.isEmpty()) { System.out.println("No names found in that range."); }
+        else { for (int i = 0; i < top.size(); i++) { NameCount nc = top.get(i); System.out.println((i + 1) + "\t" + nc.name() + "\t" + nc.count()); } }
+        System.out.println("======================================");
+    }
+
+    // --- Method 12: writeRankEquivalence ---
+    /**
+     * Writes the full rank-equivalence table between two years for a gender: every name
+     * in year mapped to the name with the same rank in newYear. Walks both years' rank
+     * arrays side by side in one pass instead of two file scans per name.
+     * Returns the number of rows written, or -1 if either year is not available.
+     */
+    public int writeRankEquivalence(int year, int newYear, String gender, Writer out) throws IOException {
+        YearData from = getCorpus().getYear(year); YearData to = getCorpus().getYear(newYear);
+        if (from == null || to == null) { System.err.println("Error: No data loaded for " + (from == null ? year : newYear) + "."); return -1; }
+        String[] fromNames = from.getNames(gender); String[] toNames = to.getNames(gender);
+        out.write("Rank\t" + year + "\t" + newYear + "\n");
+        for (int i = 0; i < fromNames.length; i++) {
+            out.write(Integer.toString(i + 1)); out.write('\t'); out.write(fromNames[i]); out.write('\t');
+            out.write(i < toNames.length ? toNames[i] : "NO NAME"); out.write('\n');
+        }
+        out.flush();
+        return fromNames.length;
+    }
+
+    /**
+     * Prints the rank-equivalence table between two years for a gender to the console.
+     */
+    public void printRankEquivalence(int year, int newYear, String gender) {
+        System.out.println("\n==== Rank Equivalence (" + gender + ") " + year + " -> " + newYear + " ====");
+        try { PrintWriter out = new PrintWriter(System.out); int rows = writeRankEquivalence(year, newYear, gender, out); if (rows >= 0) { System.out.println(rows + " name(s) mapped."); } }
+        catch (IOException e) { System.err.println("Error writing rank equivalence table: " + e.getMessage()); }
+        System.out.println("======================================");
+    }
+
+    // --- Method 13: biggestMovers ---
+    /**
+     * Returns the top k risers, fallers, new entries and dropouts for a gender between two years,
+     * or null if either year is not available.
+     */
+    public NameMovers biggestMovers(int year, int newYear, String gender, int k) {
+        YearData from = getCorpus().getYear(year); YearData to = getCorpus().getYear(newYear);
+        if (from == null || to == null) { System.err.println("Error: No data loaded for " + (from == null ? year : newYear) + "."); return null; }
+        return NameMovers.compute(from, to, gender, k);
+    }
+
+    // --- Method 14: printCorpusTotals ---
+    /**
+     * Prints whole-corpus rollups (total, girls' and boys' births, births in names with at least
+     * minCount births in a year, and their share) from the compressed count columns, without
+     * decoding them.
+     */
+    public void printCorpusTotals(int minCount) {
+        long girls = 0; long boys = 0; long girlsAtLeast = 0; long boysAtLeast = 0; int girlsNames = 0; int boysNames = 0;
+        for (YearData yearData : getCorpus().years().values()) {
+            CountColumn f = yearData.getCountColumn("F"); CountColumn m = yearData.getCountColumn("M");
+            girls += f.sum(); boys += m.sum();
+            girlsAtLeast += f.sumAtLeast(minCount); boysAtLeast += m.sumAtLeast(minCount);
+            girlsNames += f.size(); boysNames += m.size();
+        }
+        long total = girls + boys;
+        System.out.println("\n==== Corpus Totals Across " + getCorpus().years().size() + " Year(s) ====");
+        System.out.println("  Total Births:        " + total); System.out.println("  Girls' Births:       " + girls + String.format(" (%.2f%%)", 100 * CountAggregator.share(girls, total)));
+        System.out.println("  Boys' Births:        " + boys + String.format(" (%.2f%%)", 100 * CountAggregator.share(boys, total)));
+        System.out.println("  Girl Name Rows:      " + girlsNames); System.out.println("  Boy Name Rows:       " + boysNames);
+        System.out.println("  Births in names with >= " + minCount + " per year: " + (girlsAtLeast + boysAtLeast) + String.format(" (%.2f%%)", 100 * CountAggregator.share(girlsAtLeast + boysAtLeast, total)));
+        System.out.println("======================================");
+    }
+
+    // --- Method 15: phonetic group queries ---
+    /**
+     * Rank of the name's sound-alike group (e.g. Aiden/Aidan/Ayden) among all groups for the gender in a year.
+     * Returns -1 if the group had no births that year.
+     */
+    public int getGroupRank(int year, String name, String gender) {
+        return getPhoneticIndex().getGroupRank(year, name, gender);
+    }
+
+    /**
+     * Year in which the name's sound-alike group had its highest rank, or -1 if never ranked.
+     */
+    public int yearOfHighestGroupRank(String name, String gender) {
+        int year = getPhoneticIndex().yearOfHighestGroupRank(name, gender);
+        List<String> members = getPhoneticIndex().getGroupMembers(name, gender);
+        if (year == -1) { System.out.println("No sound-alike group found for " + name + " (" + gender + ")."); }
+        else { System.out.println("Group " + members + " had its highest rank (" + getGroupRank(year, name, gender) + ") in year: " + year); }
+        return year;
+    }
+
+    /**
+     * Prints the all-time ranking of sound-alike groups for a gender, limited to the top n.
+     */
+    public void printAllTimeGroupRankings(String gender, int n) {
+        List<NameCount> groups = getPhoneticIndex().allTimeGroupRankings(gender);
+        System.out.println("\n==== All-Time " + (gender.equalsIgnoreCase("F") ? "Female" : "Male") + " Sound-Alike Group Ranking ====");
+        System.out.println("Rank\tGroup\tTotal Births"); System.out.println("--------------------------------------");
+        if (groups.isEmpty()) { System.out.println("No groups found."); }
+        else { for (int i = 0; i < Math.min(n, groups.size()); i++) { NameCount nc = groups.get(i); System.out.println((i + 1) + "\t" + nc.name() + "\t" + nc.count()); } }
+        System.out.println("======================================");
+    }
+
+    // --- Method 16: share and percentile queries ---
+    /**
+     * Fraction of the gender's births in the year that went to the name (0 if absent), or -1 if the year has no data.
+     */
+    public double getShare(int year, String name, String gender) {
+        return getShareIndex().share(name, year, gender);
+    }
+
+    /**
+     * Fraction of the gender's births in the year that went to the name or a more popular one, or -1 if not found.
+     */
+    public double getCumulativeShare(int year, String name, String gender) {
+        return getShareIndex().cumulativeShare(name, year, gender);
+    }
+
+    /**
+     * Percentile rank (0-100) of the name among the year's names for the gender, or -1 if not found.
+     */
+    public double getPercentileRank(int year, String name, String gender) {
+        return getShareIndex().percentileRank(name, year, gender);
+    }
+
+    /**
+     * Prints the name's rank, births, share, cumulative share and percentile rank for every year in the range.
+     */
+    public void printShareSeries(String name, String gender, int startYear, int endYear) {
+        List<NameShareIndex.YearShare> series = getShareIndex().series(name, gender, startYear, endYear);
+        System.out.println("\n==== Popularity of " + name + " (" + gender + ") " + startYear + "-" + endYear + " ====");
+        System.out.println("Year\tRank\tBirths\tShare %\tCumulative %\tPercentile"); System.out.println("--------------------------------------");
+        if (series.isEmpty()) { System.out.println("No years found in that range."); }
+        for (NameShareIndex.YearShare ys : series) {
+            if (ys.rank() == -1) { System.out.println(ys.year() + "\t-\t0\t0.0000\t-\t-"); continue; }
+            System.out.println(String.format("%d\t%d\t%d\t%.4f\t%.2f\t%.2f", ys.year(), ys.rank(), ys.births(), 100 * ys.share(), 100 * ys.cumulativeShare(), ys.percentileRank()));
+        }
+        System.out.println("======================================");
+    }
+
+    // --- Method 17: similar popularity curves ---
+    /**
+     * Prints the k names of the gender whose share-by-year curve is most like the name's (cosine similarity).
+     */
+    public void printSimilarTrajectories(String name, String gender, int k) {
+        TrajectoryIndex index = getTrajectoryIndex(gender);
+        System.out.println("\n==== Names with a popularity curve like " + name + " (" + gender + ") ====");
+        if (index == null || !index.contains(name)) { System.out.println("NO NAME"); System.out.println("======================================"); return; }
+        System.out.println("Rank\tName\tSimilarity"); System.out.println("--------------------------------------");
+        List<TrajectoryIndex.Match> matches = index.similar(name, k);
+        for (int i = 0; i < matches.size(); i++) { System.out.println(String.format("%d\t%s\t%.4f", i + 1, matches.get(i).name(), matches.get(i).similarity())); }
+        System.out.println("======================================");
+    }
+
+    // --- Method 18: unisex names ---
+    /**
+     * Prints the k most gender-balanced names with at least minBirths births and the k biggest crossovers.
+     */
+    public void printUnisexReport(int k, long minBirths) {
+        getUnisexNames().print(k, minBirths);
+    }
+
+    /**
+     * Prints the name's girls, boys, female share and F/M ratio in every year both genders used it, or NO NAME.
+     */
+    public void printUnisexHistory(String name) {
+        UnisexNames.UnisexName u = getUnisexNames().get(name);
+        System.out.println("\n==== " + name + " as a unisex name ====");
+        if (u == null) { System.out.println("NO NAME"); System.out.println("======================================"); return; }
+        System.out.println("Year\tGirls\tBoys\tFemale %\tF/M Ratio"); System.out.println("--------------------------------------");
+        for (int i = 0; i < u.years().length; i++) { System.out.println(String.format("%d\t%d\t%d\t%.1f\t%.3f", u.years()[i], u.female()[i], u.male()[i], 100 * u.femaleShare(i), u.ratio(i))); }
+        System.out.println("Crossover years: " + (u.crossoverYears().length == 0 ? "none" : Arrays.toString(u.crossoverYears())));
+        System.out.println("======================================");
+    }
+
+    // --- Method 19: exportCorpusToArrow ---
+    /**
+     * Writes every loaded year (year, gender, rank, name, count, cumulative births) to an Arrow IPC file.
+     * Returns the number of rows written, or -1 on error.
+     */
+    public long exportCorpusToArrow(String path) {
+        try { long rows = ArrowExport.writeCorpus(getCorpus(), Paths.get(path)); System.out.println("Wrote " + rows + " rows to " + path); return rows; }
+        catch (IOException e) { System.err.println("Error writing Arrow file " + path + ": " + e.getMessage()); return -1; }
+    }
+
+    // --- Helper Methods: in-memory corpus ---
+    private BabyNameCorpus getCorpus() {
+        if (corpus == null) { corpus = BabyNameCorpus.open(DATA_FOLDER_PATH, FILE_SUFFIX); } // Years load on first use
+        return corpus;
+    }
+    private YearCatalog getCatalog() {
+        loadCatalog().refresh(); // Stats the files; parses only those not cataloged yet
+        return catalog;
+    }
+    // The catalog as last saved (or recorded by runAnalysis), without looking at the data folder.
+    private YearCatalog loadCatalog() {
+        if (catalog == null) { catalog = YearCatalog.load(DATA_FOLDER_PATH, FILE_SUFFIX, catalogFile); }
+        return catalog;
+    }
+    // Years of the selected files, from the catalog's year -> file map; starts loading them in the background so a scan over them rarely waits on disk.
+    private int[] prefetchYears(File[] files) {
+        YearCatalog yearCatalog = getCatalog(); int[] years = new int[files.length]; int count = 0;
+        for (File f : files) {
+            YearCatalog.Entry entry = yearCatalog.get(f);
+            if (entry != null) { years[count++] = entry.year(); } else { System.err.println("Warning: Not a yob" + FILE_SUFFIX + " file in " + DATA_FOLDER_PATH + ": " + f.getName()); }
+        }
+        years = Arrays.copyOf(years, count); getCorpus().prefetch(years);
+        return years;
+    }
+    private YearRangeIndex getYearRangeIndex() {
+        if (yearRangeIndex == null) { yearRangeIndex = new YearRangeIndex(getCorpus()); }
+        return yearRangeIndex;
+    }
+    private NameShareIndex getShareIndex() {
+        if (shareIndex == null) { shareIndex = new NameShareIndex(getCorpus()); }
+        return shareIndex;
+    }
+    // Built on first use per gender; needs every year loaded. Null for an unknown gender.
+    private TrajectoryIndex getTrajectoryIndex(String gender) {
+        if (YearData.isFemale(gender)) { if (femaleTrajectories == null) { femaleTrajectories = new TrajectoryIndex(getCorpus(), "F"); } return femaleTrajectories; }
+        if (gender.equalsIgnoreCase("M")) { if (maleTrajectories == null) { maleTrajectories = new TrajectoryIndex(getCorpus(), "M"); } return maleTrajectories; }
+        System.err.println("Warning: Unknown gender: " + gender); return null;
+    }
+    private UnisexNames getUnisexNames() {
+        if (unisexNames == null) { unisexNames = UnisexNames.compute(getCorpus()); } // Needs every year loaded
+        return unisexNames;
+    }
+    private PhoneticNameIndex getPhoneticIndex() {
+        if (phoneticIndex == null) { phoneticIndex = new PhoneticNameIndex(getCorpus(), PhoneticNameIndex.Encoding.DOUBLE_METAPHONE); }
+        return phoneticIndex;
     }
 
     // --- Helper Methods for JFileChooser ---
@@ -321,9 +758,170 @@ public class ProcessBabyNames {
     public void testGetName() { System.out.println("\n==== Testing getName ===="); String name1 = getName(2012, 1, "F"); System.out.println("Name at rank 1 (F) in 2012: " + name1 + " (Expected: Sophia)"); String name2 = getName(2012, 3, "F"); System.out.println("Name at rank 3 (F) in 2012: " + name2 + " (Expected: Isabella)"); String name3 = getName(2012, 2, "M"); System.out.println("Name at rank 2 (M) in 2012: " + name3 + " (Expected: Mason)"); String name4 = getName(2012, 6, "M"); System.out.println("Name at rank 6 (M) in 2012: " + name4 + " (Expected: NO NAME)"); String name5 = getName(2012, 0, "F"); System.out.println("Name at rank 0 (F) in 2012: " + name5 + " (Expected: NO NAME)"); String name6 = getName(2025, 1, "F"); System.out.println("Name at rank 1 (F) in 2025: " + name6 + " (Expected: NO NAME)"); System.out.println("====================="); }
     public void testWhatIsNameInYear() { System.out.println("\n==== Testing whatIsNameInYear ===="); System.out.print("Test 1: "); whatIsNameInYear("Isabella", 2012, 2014, "F"); System.out.println(); System.out.print("Test 2: "); whatIsNameInYear("Sophia", 2012, 2013, "F"); System.out.println(); System.out.print("Test 3: "); whatIsNameInYear("Mason", 2012, 2013, "M"); System.out.println(); System.out.print("Test 4: "); whatIsNameInYear("NoName", 2012, 2014, "F"); System.out.println(); System.out.print("Test 5: "); whatIsNameInYear("Sophia", 2012, 2015, "F"); System.out.println(); System.out.println("=============================="); }
     /** Tests the yearOfHighestRank method. */
-    public void testYearOfHighestRank() { System.out.println("\n==== Testing yearOfHighestRank ===="); int year1 = yearOfHighestRank("Mason", "M"); System.out.println("--> Expected: 2012, Got: " + year1); int year2 = yearOfHighestRank("Sophia", "F"); System.out.println("--> Expected: 2012, Got: " + year2); int year3 = yearOfHighestRank("NonExistent", "F"); System.out.println("--> Expected: -1, Got: " + year3); System.out.println("==============================="); }
+    public void testYearOfHighestRank() { System.out.println("\n==== Testing yearOfHighestRank ===="); int year1 = yearOfHighestRank("Mason", "M"); System.out.println("--> Expected: 2012, Got: " + year1); int year2 = yearOfHighestRank("Sophia", "F"); System.out.println("--> Expected: 2012, Got: " + year2); int year3 = yearOfHighestRank("NonExistent", "F"); System.out.println("--> Expected: -1, Got: " + year3); int year4 = yearOfHighestRank("Mason", "M", 2014, 2012); System.out.println("--> Reversed range, Expected: -1, Got: " + year4); System.out.println("==============================="); }
     /** Tests the getAverageRank method. */
-    public void testGetAverageRank() { System.out.println("\n==== Testing getAverageRank ===="); double avg1 = getAverageRank("Mason", "M"); System.out.println("--> Expected: 3.0, Got: " + avg1); double avg2 = getAverageRank("Jacob", "M"); System.out.println("--> Expected: ~2.67, Got: " + avg2); double avg3 = getAverageRank("NonExistent", "F"); System.out.println("--> Expected: -1.0, Got: " + avg3); System.out.println("============================"); }
+    public void testGetAverageRank() { System.out.println("\n==== Testing getAverageRank ===="); double avg1 = getAverageRank("Mason", "M"); System.out.println("--> Expected: 3.0, Got: " + avg1); double avg2 = getAverageRank("Jacob", "M"); System.out.println("--> Expected: ~2.67, Got: " + avg2); double avg3 = getAverageRank("NonExistent", "F"); System.out.println("--> Expected: -1.0, Got: " + avg3); double avg4 = getAverageRank("Mason", "M", 2014, 2012); System.out.println("--> Reversed range, Expected: -1.0, Got: " + avg4); System.out.println("============================"); }
+    /** Tests the topNamesInYearRange method. */
+    public void testTopNamesInYearRange() { System.out.println("\n==== Testing topNamesInYearRange ===="); List<NameCount> top1 = topNamesInYearRange(2012, 2014, "F", 3); System.out.println("--> Top 3 (F) 2012-2014: " + top1); List<NameCount> top2 = topNamesInYearRange(2012, 2012, "M", 1); System.out.println("--> Expected: Jacob, Got: " + (top2.isEmpty() ? "NONE" : top2.get(0).name())); List<NameCount> top3 = topNamesInYearRange(1700, 1710, "F", 5); System.out.println("--> Expected: [], Got: " + top3); System.out.println("===================================="); }
+    /** Tests the printRankEquivalence method. */
+    public void testRankEquivalence() { System.out.println("\n==== Testing printRankEquivalence ===="); System.out.println("Expected row 3: 3\tIsabella\t<rank 3 (F) in 2014>"); printRankEquivalence(2012, 2014, "F"); System.out.println("Expected: error for missing year 2025"); printRankEquivalence(2012, 2025, "F"); System.out.println("===================================="); }
+    /** Tests the biggestMovers method. */
+    public void testBiggestMovers() { System.out.println("\n==== Testing biggestMovers ===="); NameMovers movers = biggestMovers(2012, 2014, "F", 3); if (movers != null) { movers.print(); } NameMovers missing = biggestMovers(2012, 2025, "F", 3); System.out.println("--> Expected: null, Got: " + missing); System.out.println("============================"); }
+    /** Tests the sound-alike group methods. */
+    public void testPhoneticGroups() { System.out.println("\n==== Testing phonetic groups ===="); int rank1 = getGroupRank(2012, "Sophia", "F"); System.out.println("--> Group rank of Sophia (F) in 2012 (Expected: 1), Got: " + rank1); int rank2 = getGroupRank(2012, "NoName", "F"); System.out.println("--> Expected: -1, Got: " + rank2); int year1 = yearOfHighestGroupRank("Mason", "M"); System.out.println("--> Expected: 2012, Got: " + year1); printAllTimeGroupRankings("F", 5);
+        PhoneticNameIndex codes = new PhoneticNameIndex(new BabyNameCorpus(new ArrayList<>()), PhoneticNameIndex.Encoding.DOUBLE_METAPHONE);
+        System.out.println("--> Aiden, Aidan and Ayden share a code (Expected: true), Got: " + (codes.encode("Aiden").equals(codes.encode("Aidan")) && codes.encode("Aiden").equals(codes.encode("Ayden"))));
+        System.out.println("--> Christopher and Christina share a code (Expected: false), Got: " + codes.encode("Christopher").equals(codes.encode("Christina")));
+        System.out.println("--> Alexander and Alexa share a code (Expected: false), Got: " + codes.encode("Alexander").equals(codes.encode("Alexa"))); System.out.println("================================"); }
+    /** Tests the share and percentile methods. */
+    public void testShares() { System.out.println("\n==== Testing shares ===="); double share1 = getShare(2012, "Sophia", "F"); System.out.println("--> Share of Sophia (F) in 2012: " + share1 + " (Expected: between 0 and 1)"); double share2 = getShare(2012, "NoName", "F"); System.out.println("--> Expected: 0.0, Got: " + share2); double share3 = getShare(2025, "Sophia", "F"); System.out.println("--> Expected: -1.0, Got: " + share3); double cumulative = getCumulativeShare(2012, "Sophia", "F"); System.out.println("--> Cumulative share of rank 1 equals its share: " + (cumulative == share1)); double percentile = getPercentileRank(2012, "NoName", "F"); System.out.println("--> Expected: -1.0, Got: " + percentile); printShareSeries("Sophia", "F", 2012, 2015); System.out.println("========================"); }
+    /** Tests the similar popularity curve search. */
+    public void testSimilarTrajectories() {
+        System.out.println("\n==== Testing similar trajectories ====");
+        BabyNameCorpus corpus = TrajectorySearchBenchmark.syntheticCorpus(2000, "F", 7);
+        // Four bits give 16 buckets per table, so nearly every name is a candidate and the LSH path must agree with the exact search.
+        TrajectoryIndex coarse = new TrajectoryIndex(corpus, "F", 8, 4, 42);
+        TrajectoryIndex index = new TrajectoryIndex(corpus, "F");
+        int same = 0, queries = 0; double recall = 0;
+        for (int i = 0; i < 2000; i += 20) {
+            String name = "Name" + i;
+            if (!index.contains(name)) continue;
+            queries++;
+            List<TrajectoryIndex.Match> exact = index.similarExact(name, 5);
+            if (coarse.similar(name, 5).equals(coarse.similarExact(name, 5))) same++;
+            recall += TrajectorySearchBenchmark.recall(exact, index.similar(name, 5));
+        }
+        System.out.println("--> similar() equals similarExact() on a coarse index (Expected: " + queries + "), Got: " + same);
+        System.out.printf("--> Mean recall@5 of the default index (Expected: >= 0.95), Got: %.3f%n", recall / queries);
+        ProcessBabyNames synthetic = new ProcessBabyNames(corpus);
+        synthetic.printSimilarTrajectories("Name0", "F", 5);
+        synthetic.printSimilarTrajectories("NoName", "F", 5);
+        System.out.println("--> Expected: NO NAME above");
+        System.out.println("========================");
+    }
+    /** Tests the unisex name report. */
+    public void testUnisexNames() { System.out.println("\n==== Testing unisex names ===="); printUnisexReport(5, 1000); printUnisexHistory("Jordan"); printUnisexHistory("NoName"); System.out.println("--> Expected: NO NAME above"); System.out.println("========================"); }
+    /** Tests that a malformed file is reported and skipped by the ingest pipeline exactly as by processAndAnalyzeFile. */
+    public void testIngestMalformedFile() {
+        System.out.println("\n==== Testing ingest of a malformed file ====");
+        try {
+            File dir = Files.createTempDirectory("babynames-malformed").toFile();
+            File good1 = new File(dir, "yob2000.csv"); File bad = new File(dir, "yob2001.csv"); File good2 = new File(dir, "yob2002.csv");
+            Files.writeString(good1.toPath(), "Emily,F,100\nJacob,M,90\n"); Files.writeString(bad.toPath(), "Emma,F,50\n\"Unterminated,F,40\nNoah,M,30\n"); Files.writeString(good2.toPath(), "Emily,F,10\nNoah,M,20\n");
+            File[] files = {good1, bad, good2};
+            Map<String, Integer> pipeF = new HashMap<>(); Map<String, Integer> pipeM = new HashMap<>(); Map<String, Integer> pipeAll = new HashMap<>();
+            int[][] piped = new IngestPipeline((n, b) -> pipeF.merge(n, b, Integer::sum), (n, b) -> pipeM.merge(n, b, Integer::sum), (n, b) -> pipeAll.merge(n, b, Integer::sum)).run(files, null);
+            Map<String, Integer> seqF = new HashMap<>(); Map<String, Integer> seqM = new HashMap<>(); Map<String, Integer> seqAll = new HashMap<>();
+            boolean same = true;
+            for (int i = 0; i < files.length; i++) { int[] expected = processAndAnalyzeFile(files[i], files[i].getName(), seqF, seqM, seqAll); same &= Arrays.equals(expected, piped[i]); }
+            System.out.println("--> Expected: all 3 files summarized, Got: " + piped.length);
+            System.out.println("--> Per-file results match processAndAnalyzeFile (Expected: true): " + same);
+            System.out.println("--> Totals match processAndAnalyzeFile (Expected: true): " + (pipeF.equals(seqF) && pipeM.equals(seqM) && pipeAll.equals(seqAll)));
+            System.out.println("--> Noah counted only from yob2002 (Expected: 20), Got: " + pipeM.get("Noah"));
+            for (File f : files) { f.delete(); } dir.delete();
+        } catch (IOException | RuntimeException e) { System.out.println("--> FAILED: " + e); }
+        System.out.println("===========================================");
+    }
+    /** Tests that the ingest pipeline fills the catalog so summaries come from the catalog file without parsing. */
+    public void testCatalogFromIngest() {
+        System.out.println("\n==== Testing catalog filled by the ingest pipeline ====");
+        try {
+            File dir = Files.createTempDirectory("babynames-catalog").toFile(); Path sidecar = Files.createTempFile("babynames-catalog", ".tsv"); Files.delete(sidecar);
+            File y2000 = new File(dir, "yob2000.csv"); File y2001 = new File(dir, "yob2001.csv"); File other = new File(dir, "yob2002short.csv");
+            Files.writeString(y2000.toPath(), "Emily,F,100\nJacob,M,90\nEmma,F,5\n"); Files.writeString(y2001.toPath(), "Emma,F,50\nNoah,M,30\n"); Files.writeString(other.toPath(), "Emily,F,10\n");
+            YearCatalog recorded = YearCatalog.load(dir.getPath(), ".csv", sidecar);
+            IngestPipeline pipeline = new IngestPipeline((n, b) -> { }, (n, b) -> { }, (n, b) -> { });
+            pipeline.setCatalog(recorded);
+            pipeline.run(new File[] {y2000, y2001, other}, null);
+            System.out.println("--> Catalog file written by the run (Expected: true): " + Files.isRegularFile(sidecar));
+            boolean same = recorded.get(y2000).equals(YearCatalog.ingest(y2000, 2000, false)) && recorded.get(y2001).equals(YearCatalog.ingest(y2001, 2001, false));
+            System.out.println("--> Entries match a full parse (Expected: true): " + same);
+            System.out.println("--> Files without the suffix cataloged (Expected: null): " + recorded.get(other));
+            YearCatalog reopened = YearCatalog.open(dir.getPath(), ".csv", sidecar);
+            System.out.println("--> Files parsed on reopening (Expected: 0), Got: " + reopened.getIngestedCount());
+            System.out.println("--> Year -> file map (Expected: [2000, 2001]), Got: " + reopened.files(".csv").keySet());
+            System.out.println("--> summarize reads the catalog file (Expected: true): " + YearCatalog.summarize(y2001, sidecar).equals(recorded.get(y2001)));
+            y2000.delete(); y2001.delete(); other.delete(); dir.delete(); Files.deleteIfExists(sidecar);
+        } catch (IOException | RuntimeException e) { System.out.println("--> FAILED: " + e); }
+        System.out.println("===========================================");
+    }
+    /** Tests that the rankings written to a CSV sink form one table with a Gender column. */
+    public void testRankingOutput() {
+        System.out.println("\n==== Testing ranking output ====");
+        try {
+            Path file = Files.createTempFile("babynames-rankings", ".csv");
+            Map<String, Integer> female = new HashMap<>(Map.of("Emily", 30, "Emma", 20)); Map<String, Integer> male = new HashMap<>(Map.of("Jacob", 25)); Map<String, Integer> combined = new HashMap<>(Map.of("Emily", 30, "Jacob", 25, "Emma", 20));
+            try (RankedOutput out = RankedOutput.toFile(file, RankedOutput.Format.CSV, false)) { setRankingOutput(out); printAllTimeRankings(female, male, combined, 1); } finally { setRankingOutput(null); }
+            List<String> lines = Files.readAllLines(file);
+            System.out.println("--> Expected: 1 header + 6 rows, Got: " + lines.size() + " lines");
+            System.out.println("--> Expected header: Gender,Rank,Name,Total Births, Got: " + lines.get(0));
+            System.out.println("--> Header lines (Expected: 1), Got: " + lines.stream().filter(l -> l.startsWith("Gender,")).count());
+            System.out.println("--> Expected: M,1,Jacob,25 and all,3,Emma,20, Got: " + lines.contains("M,1,Jacob,25") + " " + lines.contains("all,3,Emma,20"));
+            Files.delete(file);
+        } catch (IOException | RuntimeException e) { System.out.println("--> FAILED: " + e); }
+        System.out.println("================================");
+    }
+    /** Tests that the verbose records of several files, from the pipeline and processAndAnalyzeFile, form one CSV table with a File column. */
+    public void testVerboseOutput() {
+        System.out.println("\n==== Testing verbose output ====");
+        try {
+            File dir = Files.createTempDirectory("babynames-verbose").toFile();
+            File first = new File(dir, "yob2000.csv"); File second = new File(dir, "yob2001.csv");
+            Files.writeString(first.toPath(), "Emily,F,100\nJacob,M,90\n"); Files.writeString(second.toPath(), "Emma,F,50\n");
+            Path file = Files.createTempFile("babynames-verbose", ".csv");
+            try (RankedOutput out = RankedOutput.toFile(file, RankedOutput.Format.CSV, false)) {
+                IngestPipeline pipeline = new IngestPipeline((n, b) -> { }, (n, b) -> { }, (n, b) -> { }); pipeline.setVerboseOutput(out);
+                pipeline.run(new File[] {first, second}, null);
+                setVerboseOutput(out); processAndAnalyzeFile(second, second.getName(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+            } finally { setVerboseOutput(null); }
+            List<String> lines = Files.readAllLines(file);
+            System.out.println("--> Expected: 1 header + 4 rows, Got: " + lines.size() + " lines");
+            System.out.println("--> Expected header: File,Rank,Name,Gender,Count, Got: " + lines.get(0));
+            System.out.println("--> Header lines (Expected: 1), Got: " + lines.stream().filter(l -> l.startsWith("File,")).count());
+            System.out.println("--> Expected: yob2000.csv,1,Jacob,M,90 and yob2001.csv,1,Emma,F,50, Got: " + lines.contains("yob2000.csv,1,Jacob,M,90") + " " + lines.contains("yob2001.csv,1,Emma,F,50"));
+            Files.delete(file); first.delete(); second.delete(); dir.delete();
+        } catch (IOException | RuntimeException e) { System.out.println("--> FAILED: " + e); }
+        System.out.println("================================");
+    }
+    /** Tests that an exported corpus and a directly written empty batch read back intact with ArrowIpcReader. */
+    public void testArrowExport() {
+        System.out.println("\n==== Testing Arrow export ====");
+        try {
+            Path file = Files.createTempFile("babynames", ".arrow");
+            YearData y2000 = new YearData(2000, new String[] {"Emily", "Zo\u00eb"}, new int[] {30, 7}, new String[] {"Jos\u00e9"}, new int[] {12});
+            YearData y2001 = new YearData(2001, new String[] {"Emma"}, new int[] {20}, new String[0], new int[0]);
+            long rows = ArrowExport.writeCorpus(new BabyNameCorpus(List.of(y2000, y2001)), file);
+            byte[] bytes = Files.readAllBytes(file);
+            System.out.println("--> Expected magic: ARROW1 ... ARROW1, Got: " + new String(bytes, 0, 6, StandardCharsets.US_ASCII) + " ... " + new String(bytes, bytes.length - 6, 6, StandardCharsets.US_ASCII));
+            ArrowIpcReader reader = new ArrowIpcReader(file);
+            System.out.println("--> Expected: 4 rows in 3 footer blocks (2000 F, 2000 M, 2001 F), Got: " + rows + " rows in " + reader.blocks().size());
+            boolean lengths = true;
+            int[] batchRows = {2, 1, 1};
+            int[] nameBytes = {"Emily".length() + "Zo\u00eb".getBytes(StandardCharsets.UTF_8).length, "Jos\u00e9".getBytes(StandardCharsets.UTF_8).length, "Emma".length()};
+            for (int i = 0; i < reader.blocks().size(); i++) {
+                ArrowIpcReader.Batch batch = reader.batch(i); ArrowIpcReader.Block block = reader.blocks().get(i); int n = batchRows[i];
+                // year, rank and count are int32, cumulative_births int64, gender and name utf8 (offsets then text), each buffer padded to 8 bytes.
+                long expectedBody = 3 * align8(4L * n) + align8(8L * n) + 2 * align8(4L * (n + 1)) + align8(n) + align8(nameBytes[i]);
+                lengths &= batch.rows() == n && batch.metadataLength() == block.metadataLength() && batch.metadataLength() % 8 == 0 && batch.bodyLength() == block.bodyLength() && batch.bodyLength() == expectedBody;
+            }
+            System.out.println("--> Batch row counts, metadata and body lengths match the footer and the columns (Expected: true): " + lengths);
+            ArrowIpcReader.Batch first = reader.batch(0);
+            System.out.println("--> Expected: 2000 F 2 Zo\u00eb 7 37, Got: " + first.intValue(0, 1) + " " + first.text(1, 1) + " " + first.intValue(2, 1) + " " + first.text(3, 1) + " " + first.intValue(4, 1) + " " + first.longValue(5, 1));
+            System.out.println("--> Expected: Jos\u00e9, Got: " + reader.batch(1).text(3, 0));
+
+            try (ArrowIpcWriter writer = new ArrowIpcWriter(file, new String[] {"name", "count"}, new ArrowIpcWriter.Type[] {ArrowIpcWriter.Type.UTF8, ArrowIpcWriter.Type.INT32})) {
+                writer.beginBatch(0); writer.textColumn(row -> "unused"); writer.intColumn(row -> -1); writer.endBatch();
+                writer.beginBatch(1); writer.textColumn(row -> "Zo\u00eb"); writer.intColumn(row -> 7); writer.endBatch();
+            }
+            reader = new ArrowIpcReader(file);
+            ArrowIpcReader.Batch empty = reader.batch(0); ArrowIpcReader.Batch one = reader.batch(1);
+            System.out.println("--> Expected: 2 blocks, empty batch of 0 rows with an 8-byte body, Got: " + reader.blocks().size() + " blocks, " + empty.rows() + " rows, " + empty.bodyLength() + " bytes");
+            System.out.println("--> Expected: Zo\u00eb 7 after the empty batch, Got: " + one.text(0, 0) + " " + one.intValue(1, 0));
+            Files.delete(file);
+        } catch (IOException | RuntimeException e) { System.out.println("--> FAILED: " + e); }
+        System.out.println("==============================");
+    }
+    private static long align8(long length) { return (length + 7) / 8 * 8; }
     /** Tests the getTotalBirthsRankedHigher method. */
     public void testGetTotalBirthsRankedHigher() { System.out.println("\n==== Testing getTotalBirthsRankedHigher ===="); int total1 = getTotalBirthsRankedHigher(2012, "Ethan", "M"); System.out.println("--> Expected: 15, Got: " + total1); int total2 = getTotalBirthsRankedHigher(2012, "Sophia", "F"); System.out.println("--> Expected: 0, Got: " + total2); int total3 = getTotalBirthsRankedHigher(2012, "Isabella", "F"); System.out.println("--> Expected: 19, Got: " + total3); int total4 = getTotalBirthsRankedHigher(2012, "NonExistent", "F"); System.out.println("--> (Name not found) Total births higher: " + total4); System.out.println("===================================="); }
 
@@ -340,6 +938,7 @@ public class ProcessBabyNames {
 
         System.out.println("\nStarting analysis...");
         ProcessBabyNames processor = new ProcessBabyNames();
+        // processor.setVerboseOutput(RankedOutput.toStdout(RankedOutput.Format.TAB)); // Uncomment to print every record while processing
         processor.runAnalysis(); // Run main analysis using JFileChooser
 
         System.out.println("\n--- Your Name Comparison ---");
@@ -352,12 +951,29 @@ public class ProcessBabyNames {
         // Note: printFileSummary, testYearOfHighestRank, testGetAverageRank will open file dialogs.
         // System.out.println("\n--- Running Test Methods ---");
         // processor.printFileSummary();
+        // processor.printFileSummary(2012);
+        // processor.printCatalogTotals();
         // processor.testGetRank();
         // processor.testGetName();
         // processor.testWhatIsNameInYear();
         // processor.testYearOfHighestRank();
         // processor.testGetAverageRank();
         // processor.testGetTotalBirthsRankedHigher();
+        // processor.testTopNamesInYearRange();
+        // processor.testRankEquivalence();
+        // processor.testBiggestMovers();
+        // processor.printCorpusTotals(100);
+        // processor.testPhoneticGroups();
+        // processor.testShares();
+        // processor.testSimilarTrajectories();
+        // processor.testUnisexNames();
+        // processor.testIngestMalformedFile();
+        // processor.testCatalogFromIngest();
+        // processor.testRankingOutput();
+        // processor.testVerboseOutput();
+        // processor.testArrowExport();
+        // processor.exportCorpusToArrow("babynames.arrow"); // Arrow IPC file for pyarrow/polars/DuckDB
+        // processor.runShardedAnalysis(4); // Opens a file dialog; totals the files on 4 worker JVMs
         // System.out.println("--- Finished Test Methods ---");
 
         System.out.println("\nAnalysis complete.");
@@ -0,0 +1,218 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a query log against a SnapshotStore from several client threads and
+ * reports throughput and latency percentiles. The log is either read from a
+ * file or generated with Zipf-distributed name popularity (a few names get
+ * most of the lookups, like real traffic).
+ *
+ * Each log line is one query:
+ *   getRank <year> <name> <gender>
+ *   getName <year> <rank> <gender>
+ *   whatIsNameInYear <name> <year> <newYear> <gender>
+ *   getTotalBirthsRankedHigher <year> <name> <gender>
+ *   yearOfHighestRank <name> <gender>
+ *
+ * Closed-loop mode (the default) sends each query as soon as the previous one
+ * returns. With --rate the clients instead follow a fixed schedule, and
+ * latency is measured from when a query was due, so a stall also counts
+ * against the queries that queued up behind it.
+ *
+ * Usage: java QueryLoadGenerator <dataFolder> [fileSuffix] [--threads N] [--queries N]
+ *        [--rate queriesPerSecond] [--log file] [--write-log file] [--seed N]
+ */
+public class QueryLoadGenerator {
+
+    // Popularity skew of generated lookups; about 1 matches how name popularity itself falls off.
+    private static final double ZIPF_EXPONENT = 1.07;
+    // Cumulative Zipf probabilities by ranking size; only used while generating, on one thread.
+    private static final Map<Integer, double[]> ZIPF_CDFS = new HashMap<>();
+
+    enum Type { GET_RANK, GET_NAME, WHAT_IS_NAME_IN_YEAR, TOTAL_BIRTHS_RANKED_HIGHER, YEAR_OF_HIGHEST_RANK }
+
+    /** One parsed query; fields a query type does not use are 0 or null. */
+    record Query(Type type, int year, int otherYear, int rank, String name, String gender) {
+
+        static Query parse(String line) {
+            String[] p = line.trim().split("\\s+");
+            switch (p[0]) {
+                case "getRank": return new Query(Type.GET_RANK, Integer.parseInt(p[1]), 0, 0, p[2], p[3]);
+                case "getName": return new Query(Type.GET_NAME, Integer.parseInt(p[1]), 0, Integer.parseInt(p[2]), null, p[3]);
+                case "whatIsNameInYear": return new Query(Type.WHAT_IS_NAME_IN_YEAR, Integer.parseInt(p[2]), Integer.parseInt(p[3]), 0, p[1], p[4]);
+                case "getTotalBirthsRankedHigher": return new Query(Type.TOTAL_BIRTHS_RANKED_HIGHER, Integer.parseInt(p[1]), 0, 0, p[2], p[3]);
+                case "yearOfHighestRank": return new Query(Type.YEAR_OF_HIGHEST_RANK, 0, 0, 0, p[1], p[2]);
+                default: throw new IllegalArgumentException("Unknown query type: " + p[0]);
+            }
+        }
+
+        String toLine() {
+            switch (type) {
+                case GET_RANK: return "getRank " + year + " " + name + " " + gender;
+                case GET_NAME: return "getName " + year + " " + rank + " " + gender;
+                case WHAT_IS_NAME_IN_YEAR: return "whatIsNameInYear " + name + " " + year + " " + otherYear + " " + gender;
+                case TOTAL_BIRTHS_RANKED_HIGHER: return "getTotalBirthsRankedHigher " + year + " " + name + " " + gender;
+                default: return "yearOfHighestRank " + name + " " + gender;
+            }
+        }
+
+        /** Runs the query; the returned number only exists so the JIT cannot skip the work. */
+        long run(SnapshotStore.Snapshot snapshot) {
+            switch (type) {
+                case GET_RANK: return snapshot.getRank(year, name, gender);
+                case GET_NAME: return snapshot.getName(year, rank, gender).length();
+                case WHAT_IS_NAME_IN_YEAR: return snapshot.whatIsNameInYear(name, year, otherYear, gender).length();
+                case TOTAL_BIRTHS_RANKED_HIGHER: return snapshot.getTotalBirthsRankedHigher(year, name, gender);
+                default: return snapshot.yearOfHighestRank(name, gender);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: java QueryLoadGenerator <dataFolder> [fileSuffix] [--threads N] [--queries N] "
+                               + "[--rate queriesPerSecond] [--log file] [--write-log file] [--seed N]");
+            return;
+        }
+        String folder = args[0];
+        String suffix = args.length > 1 && !args[1].startsWith("--") ? args[1] : ".csv";
+        int threads = Integer.parseInt(option(args, "--threads", "4"));
+        int queryCount = Integer.parseInt(option(args, "--queries", "200000"));
+        double rate = Double.parseDouble(option(args, "--rate", "0"));
+        String logFile = option(args, "--log", null);
+        String writeLog = option(args, "--write-log", null);
+        long seed = Long.parseLong(option(args, "--seed", "42"));
+
+        SnapshotStore store = new SnapshotStore(folder, suffix);
+        if (store.current().getCorpus().isEmpty()) {
+            System.out.println("No yobXXXX" + suffix + " files found in " + folder + ".");
+            return;
+        }
+        List<Query> queries = logFile != null ? readLog(logFile) : generate(store.current().getCorpus(), queryCount, seed);
+        if (writeLog != null) writeLog(writeLog, queries);
+        System.out.println("Replaying " + queries.size() + " queries on " + threads + " thread(s), "
+                           + (rate > 0 ? "open loop at " + rate + " queries/s" : "closed loop") + ".");
+
+        // Warm-up pass so the measured run sees compiled code.
+        long sink = 0;
+        for (int i = 0; i < Math.min(queries.size(), 20000); i++) sink += queries.get(i).run(store.current());
+
+        LatencyHistogram total = new LatencyHistogram();
+        LatencyHistogram[] perThread = new LatencyHistogram[threads];
+        long[] sinks = new long[threads];
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            perThread[t] = new LatencyHistogram();
+            workers[t] = new Thread(() -> sinks[id] = runClient(store, queries, id, threads, rate, start, perThread[id]), "load-client-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (int t = 0; t < threads; t++) {
+            total.add(perThread[t]);
+            sink += sinks[t];
+        }
+
+        System.out.printf("Completed %d queries in %.2f s: %.0f queries/s%n", total.getCount(), seconds, total.getCount() / seconds);
+        System.out.printf("Latency (us): mean %.2f  p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                          total.getMean() / 1e3, total.percentile(50) / 1e3, total.percentile(90) / 1e3,
+                          total.percentile(99) / 1e3, total.percentile(99.9) / 1e3, total.getMax() / 1e3);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    // Client `id` of `threads` runs every threads-th query, starting at its own index.
+    private static long runClient(SnapshotStore store, List<Query> queries, int id, int threads, double rate,
+                                  long start, LatencyHistogram histogram) {
+        long sink = 0;
+        long intervalNanos = rate > 0 ? (long) (1e9 * threads / rate) : 0;
+        long sent = 0;
+        for (int i = id; i < queries.size(); i += threads) {
+            long due = System.nanoTime();
+            if (intervalNanos > 0) {
+                due = start + sent * intervalNanos;
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+            }
+            sink += queries.get(i).run(store.current());
+            histogram.record(System.nanoTime() - due);
+            sent++;
+        }
+        return sink;
+    }
+
+    /**
+     * Builds a synthetic log: a weighted mix of query types over random years, with names and
+     * ranks drawn from a Zipf distribution over each year's ranking.
+     */
+    static List<Query> generate(BabyNameCorpus corpus, int count, long seed) {
+        Random random = new Random(seed);
+        int[] years = corpus.years().keySet().stream().mapToInt(Integer::intValue).toArray();
+        List<Query> queries = new ArrayList<>(count);
+        while (queries.size() < count) {
+            YearData yearData = corpus.getYear(years[random.nextInt(years.length)]);
+            String gender = random.nextBoolean() ? "F" : "M";
+            if (yearData.size(gender) == 0) continue;
+            int rank = zipfRank(random, yearData.size(gender));
+            String name = yearData.getName(rank, gender);
+            int roll = random.nextInt(100);
+            if (roll < 35) queries.add(new Query(Type.GET_RANK, yearData.getYear(), 0, 0, name, gender));
+            else if (roll < 55) queries.add(new Query(Type.GET_NAME, yearData.getYear(), 0, rank, null, gender));
+            else if (roll < 75) queries.add(new Query(Type.WHAT_IS_NAME_IN_YEAR, yearData.getYear(), years[random.nextInt(years.length)], 0, name, gender));
+            else if (roll < 90) queries.add(new Query(Type.TOTAL_BIRTHS_RANKED_HIGHER, yearData.getYear(), 0, 0, name, gender));
+            else queries.add(new Query(Type.YEAR_OF_HIGHEST_RANK, 0, 0, 0, name, gender));
+        }
+        return queries;
+    }
+
+    /** Draws a rank in 1..n with probability proportional to 1 / rank^ZIPF_EXPONENT. */
+    static int zipfRank(Random random, int n) {
+        double[] cdf = ZIPF_CDFS.computeIfAbsent(n, key -> {
+            double[] c = new double[n];
+            double sum = 0;
+            for (int r = 1; r <= n; r++) {
+                sum += 1.0 / Math.pow(r, ZIPF_EXPONENT);
+                c[r - 1] = sum;
+            }
+            for (int i = 0; i < n; i++) c[i] /= sum;
+            return c;
+        });
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+
+    private static List<Query> readLog(String path) throws IOException {
+        List<Query> queries = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(path))) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            queries.add(Query.parse(line));
+        }
+        return queries;
+    }
+
+    private static void writeLog(String path, List<Query> queries) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(path))) {
+            for (Query query : queries) {
+                out.write(query.toLine());
+                out.newLine();
+            }
+        }
+    }
+
+    private static String option(String[] args, String flag, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(flag)) return args[i + 1];
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,315 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Writes tables of rows (ranked names, per-record dumps) to stdout or a file
+ * in large chunks instead of one println per row. Fields are encoded straight
+ * into a char buffer as tab-separated text, CSV or NDJSON (one JSON object per
+ * line, keyed by the header's column names), so no per-row strings are built.
+ * A full buffer is written out either on the caller's thread or, when async,
+ * on a background thread while the caller fills the next buffer; at most
+ * MAX_PENDING_CHUNKS buffers wait to be written before the caller blocks.
+ *
+ * Usage: header(...) once per table, then beginRow(), field(...) per column
+ * and endRow() for each row (or one of the row(...) shortcuts), then flush()
+ * before printing anything else to the same stream, and close() when done.
+ */
+public class RankedOutput implements Closeable, Flushable {
+
+    public enum Format { TAB, CSV, NDJSON }
+
+    private static final int CHUNK_CHARS = 64 * 1024;
+    private static final int MAX_PENDING_CHUNKS = 4;
+
+    private final Writer out;
+    private final Format format;
+    private final boolean closeTarget;
+    // Single writer thread keeps chunks in order; null when writing synchronously.
+    private final ExecutorService writer;
+    private final Semaphore pending = new Semaphore(MAX_PENDING_CHUNKS);
+    private final ConcurrentLinkedQueue<char[]> freeChunks = new ConcurrentLinkedQueue<>();
+    // Set by the writer thread; reported on the caller's next call.
+    private volatile IOException failure;
+
+    private char[] chunk = new char[CHUNK_CHARS];
+    private int length;
+    private String[] columns = new String[0];
+    private boolean headerWritten;
+    private int column;
+    private long rows;
+
+    /**
+     * Encodes rows onto the writer. The writer is closed by close() only if closeTarget is set.
+     */
+    public RankedOutput(Writer out, Format format, boolean async, boolean closeTarget) {
+        this.out = out;
+        this.format = format;
+        this.closeTarget = closeTarget;
+        this.writer = async ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ranked-output");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /** Synchronous output to System.out; close() flushes but leaves System.out open. */
+    public static RankedOutput toStdout(Format format) {
+        return new RankedOutput(new OutputStreamWriter(System.out, Charset.defaultCharset()), format, false, false);
+    }
+
+    /** Output to a new or truncated UTF-8 file. */
+    public static RankedOutput toFile(Path path, Format format, boolean async) throws IOException {
+        Writer writer = new OutputStreamWriter(new BufferedOutputStream(Files.newOutputStream(path), CHUNK_CHARS), StandardCharsets.UTF_8);
+        return new RankedOutput(writer, format, async, true);
+    }
+
+    /** Number of rows written so far, across all tables. */
+    public long getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Starts a table with the given column names: written as a header line for TAB and CSV,
+     * used as the object keys for NDJSON.
+     */
+    public void header(String... columnNames) {
+        columns = columnNames.clone();
+        headerWritten = true;
+        if (format == Format.NDJSON) return;
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) append(format == Format.TAB ? '\t' : ',');
+            appendText(columns[i]);
+        }
+        append('\n');
+        flushIfFull();
+    }
+
+    /**
+     * Same as header, but only if no header has been written to this output yet, so callers
+     * that each add rows to one shared table can all call it.
+     */
+    public void headerOnce(String... columnNames) {
+        if (!headerWritten) header(columnNames);
+    }
+
+    /** A (rank, name, count) row. */
+    public void row(int rank, String name, long count) {
+        beginRow();
+        field(rank);
+        field(name);
+        field(count);
+        endRow();
+    }
+
+    /** A (rank, name, gender, count) row. */
+    public void row(int rank, String name, String gender, long count) {
+        beginRow();
+        field(rank);
+        field(name);
+        field(gender);
+        field(count);
+        endRow();
+    }
+
+    public void beginRow() {
+        column = 0;
+        if (format == Format.NDJSON) append('{');
+    }
+
+    public void field(String value) {
+        separator();
+        if (format == Format.NDJSON) appendJsonString(value);
+        else appendText(value);
+    }
+
+    public void field(long value) {
+        separator();
+        appendLong(value);
+    }
+
+    public void endRow() {
+        if (format == Format.NDJSON) append('}');
+        append('\n');
+        rows++;
+        flushIfFull();
+    }
+
+    /** Writes everything buffered so far through to the target, waiting for the writer thread. */
+    @Override
+    public void flush() throws IOException {
+        submitChunk();
+        if (writer != null) {
+            await(writer.submit(() -> {
+                out.flush();
+                return null;
+            }));
+        } else {
+            out.flush();
+        }
+        checkFailure();
+    }
+
+    /** Flushes, stops the writer thread and closes the target if this output owns it. */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (writer != null) writer.shutdown();
+            if (closeTarget) out.close();
+        }
+    }
+
+    private void separator() {
+        if (column > 0) append(format == Format.TAB ? '\t' : ',');
+        if (format == Format.NDJSON) {
+            appendJsonString(column < columns.length ? columns[column] : "col" + column);
+            append(':');
+        }
+        column++;
+    }
+
+    // TAB: tabs and line breaks would split the field, so they become spaces. CSV: quoted only when needed.
+    private void appendText(String value) {
+        boolean quote = false;
+        if (format == Format.CSV) {
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+        }
+        if (quote) append('"');
+        ensureCapacity(value.length() * 2 + 2);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (format == Format.TAB && (c == '\t' || c == '\n' || c == '\r')) c = ' ';
+            if (quote && c == '"') chunk[length++] = '"';
+            chunk[length++] = c;
+        }
+        if (quote) append('"');
+    }
+
+    private void appendJsonString(String value) {
+        ensureCapacity(value.length() * 6 + 2);
+        chunk[length++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                chunk[length++] = '\\';
+                chunk[length++] = c;
+            } else if (c < 0x20) {
+                chunk[length++] = '\\';
+                chunk[length++] = 'u';
+                chunk[length++] = '0';
+                chunk[length++] = '0';
+                chunk[length++] = Character.forDigit(c >> 4, 16);
+                chunk[length++] = Character.forDigit(c & 0xF, 16);
+            } else {
+                chunk[length++] = c;
+            }
+        }
+        chunk[length++] = '"';
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            appendText(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            chunk[length++] = '-';
+            value = -value;
+        }
+        // Digits are written backwards from the end of their slot.
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            chunk[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+    }
+
+    private void append(char c) {
+        ensureCapacity(1);
+        chunk[length++] = c;
+    }
+
+    // A single field longer than the chunk gets a bigger chunk rather than being split.
+    private void ensureCapacity(int extra) {
+        if (length + extra <= chunk.length) return;
+        submitChunk();
+        if (extra > chunk.length) chunk = new char[extra];
+    }
+
+    private void flushIfFull() {
+        if (length >= CHUNK_CHARS - 256) submitChunk();
+    }
+
+    // Hands the current chunk to the writer (or writes it now) and continues in an empty one.
+    private void submitChunk() {
+        if (length == 0) return;
+        char[] full = chunk;
+        int fullLength = length;
+        if (writer == null) {
+            try {
+                out.write(full, 0, fullLength);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write output", e);
+            }
+            length = 0;
+            return;
+        }
+        checkFailureUnchecked();
+        pending.acquireUninterruptibly();
+        writer.execute(() -> {
+            try {
+                if (failure == null) out.write(full, 0, fullLength);
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                if (full.length == CHUNK_CHARS) freeChunks.offer(full);
+                pending.release();
+            }
+        });
+        char[] next = freeChunks.poll();
+        chunk = next != null ? next : new char[CHUNK_CHARS];
+        length = 0;
+    }
+
+    private void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing output", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) throw failure;
+    }
+
+    private void checkFailureUnchecked() {
+        if (failure != null) throw new UncheckedIOException("Could not write output", failure);
+    }
+}
@@ -0,0 +1,448 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the runAnalysis aggregation across several worker JVMs on the same machine.
+ * The coordinator splits the year files into shards of consecutive years,
+ * starts the workers, and hands out one shard at a time over a loopback socket.
+ * Each worker totals its shard and sends back the per-file summaries and its
+ * partial female, male and combined name totals, which the coordinator merges.
+ *
+ * Failures are retried at the level they happen. A worker that loses its
+ * connection reconnects with backoff and keeps pulling shards. A shard whose
+ * worker disconnects or goes silent is handed to the next worker that asks.
+ * A worker process that exits early is restarted. A shard that fails on
+ * MAX_SHARD_ATTEMPTS workers is reported as failed instead of being retried.
+ *
+ * Usage: java ShardedAnalysis <dataFolder> [fileSuffix] [--workers N] [--shards N]
+ *        [--drop-rate p] [--crash-rate p] [--verify]
+ * --drop-rate and --crash-rate make each worker drop its connection or exit before
+ * sending a result with probability p, to exercise recovery; --verify repeats the
+ * analysis in this JVM and compares the results.
+ */
+public class ShardedAnalysis {
+
+    private static final int MAX_SHARD_ATTEMPTS = 5;
+    private static final int MAX_CONNECT_ATTEMPTS = 8;
+    private static final int MAX_WORKER_RESTARTS = 16;
+    // A worker silent this long on a shard is presumed stuck; its shard goes to another worker.
+    private static final int SHARD_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    // Coordinator -> worker messages.
+    private static final byte SHARD = 1;
+    private static final byte DONE = 2;
+    // Worker -> coordinator messages.
+    private static final byte HELLO = 10;
+    private static final byte RESULT = 11;
+    private static final byte FAILED = 12;
+
+    /** Merged output of a sharded run. */
+    public static final class Result {
+        // File name -> {total births, girls' names, boys' names, all names}, as in processAndAnalyzeFile.
+        private final Map<String, int[]> fileResults = new TreeMap<>();
+        private final Map<String, Integer> femaleTotals = new HashMap<>();
+        private final Map<String, Integer> maleTotals = new HashMap<>();
+        private final Map<String, Integer> combinedTotals = new HashMap<>();
+        private final List<String> failedFiles = new ArrayList<>();
+        private int workerRestarts;
+        private int shardRetries;
+
+        public Map<String, int[]> getFileResults() { return fileResults; }
+        public Map<String, Integer> getFemaleTotals() { return femaleTotals; }
+        public Map<String, Integer> getMaleTotals() { return maleTotals; }
+        public Map<String, Integer> getCombinedTotals() { return combinedTotals; }
+        /** Files of shards that failed MAX_SHARD_ATTEMPTS times and are missing from the totals. */
+        public List<String> getFailedFiles() { return failedFiles; }
+        public int getWorkerRestarts() { return workerRestarts; }
+        public int getShardRetries() { return shardRetries; }
+    }
+
+    // --- Coordinator ---
+
+    private final List<List<File>> shards;
+    private final BlockingQueue<Integer> pendingShards = new LinkedBlockingQueue<>();
+    private final int[] attempts;
+    private final Set<Integer> finishedShards = new HashSet<>();
+    private final CountDownLatch remaining;
+    private final Result result = new Result();
+
+    private ShardedAnalysis(List<List<File>> shards) {
+        this.shards = shards;
+        this.attempts = new int[shards.size()];
+        this.remaining = new CountDownLatch(shards.size());
+        for (int i = 0; i < shards.size(); i++) pendingShards.add(i);
+    }
+
+    /**
+     * Totals the files on `workers` worker JVMs, split into about `shardCount` shards of consecutive
+     * years. workerArgs are passed to every worker (e.g. fault injection options).
+     */
+    public static Result run(List<File> files, int workers, int shardCount, String... workerArgs) throws IOException, InterruptedException {
+        ShardedAnalysis coordinator = new ShardedAnalysis(split(files, shardCount));
+        if (files.isEmpty()) return coordinator.result;
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread acceptor = new Thread(() -> coordinator.acceptWorkers(server), "shard-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            List<Process> processes = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, workers); i++) processes.add(startWorker(server.getLocalPort(), i, workerArgs));
+            int nextWorkerId = processes.size();
+            // Restart workers that exit while work remains.
+            while (!coordinator.remaining.await(200, TimeUnit.MILLISECONDS)) {
+                for (int i = 0; i < processes.size(); i++) {
+                    Process process = processes.get(i);
+                    if (process.isAlive()) continue;
+                    if (coordinator.result.workerRestarts >= MAX_WORKER_RESTARTS) {
+                        if (processes.stream().noneMatch(Process::isAlive)) throw new IOException("All workers exited and the restart limit was reached");
+                        continue;
+                    }
+                    System.err.println("Warning: Worker exited with status " + process.exitValue() + "; starting a replacement.");
+                    processes.set(i, startWorker(server.getLocalPort(), nextWorkerId++, workerArgs));
+                    coordinator.result.workerRestarts++;
+                }
+            }
+            for (Process process : processes) {
+                // Workers exit on DONE; anything still running after a grace period is stopped.
+                if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroyForcibly();
+            }
+        }
+        return coordinator.result;
+    }
+
+    /** Splits files into up to shardCount shards of consecutive years. */
+    static List<List<File>> split(List<File> files, int shardCount) {
+        List<File> sorted = new ArrayList<>(files);
+        sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+        int count = Math.max(1, Math.min(shardCount, sorted.size()));
+        List<List<File>> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int from = (int) ((long) sorted.size() * i / count);
+            int to = (int) ((long) sorted.size() * (i + 1) / count);
+            if (to > from) shards.add(new ArrayList<>(sorted.subList(from, to)));
+        }
+        return shards;
+    }
+
+    private static Process startWorker(int port, int workerId, String... workerArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardedAnalysis.class.getName());
+        command.add("--worker");
+        command.add(Integer.toString(port));
+        command.add(Integer.toString(workerId));
+        command.addAll(Arrays.asList(workerArgs));
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private void acceptWorkers(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "shard-handler");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) System.err.println("Warning: Could not accept worker connection: " + e.getMessage());
+            }
+        }
+    }
+
+    // Hands shards to one connected worker until none remain. A shard in flight when the
+    // connection breaks is put back for another worker.
+    private void serve(Socket socket) {
+        int inFlight = -1;
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            s.setSoTimeout(SHARD_TIMEOUT_MILLIS);
+            if (in.readByte() != HELLO) throw new IOException("Unexpected handshake");
+            int workerId = in.readInt();
+            while (true) {
+                int shard = nextShard();
+                if (shard == -1) {
+                    out.writeByte(DONE);
+                    out.flush();
+                    return;
+                }
+                inFlight = shard;
+                out.writeByte(SHARD);
+                out.writeInt(shard);
+                out.writeInt(shards.get(shard).size());
+                for (File file : shards.get(shard)) out.writeUTF(file.getPath());
+                out.flush();
+
+                byte reply = in.readByte();
+                if (in.readInt() != shard) throw new IOException("Reply for the wrong shard");
+                if (reply == RESULT) {
+                    readResult(shard, in);
+                } else if (reply == FAILED) {
+                    String message = in.readUTF();
+                    System.err.println("Warning: Worker " + workerId + " failed shard " + shard + ": " + message);
+                    shardFailed(shard);
+                } else {
+                    throw new IOException("Unexpected message " + reply);
+                }
+                inFlight = -1;
+            }
+        } catch (IOException e) {
+            if (inFlight != -1) {
+                System.err.println("Warning: Lost worker during shard " + inFlight + " (" + e + "); reassigning it.");
+                shardFailed(inFlight);
+            }
+        }
+    }
+
+    // Next shard to hand out, waiting while other workers still hold shards that may come back; -1 when all are finished.
+    private int nextShard() throws IOException {
+        try {
+            while (remaining.getCount() > 0) {
+                Integer shard = pendingShards.poll(100, TimeUnit.MILLISECONDS);
+                if (shard != null) return shard;
+            }
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    // Reads the whole result before merging, so a connection lost halfway leaves the totals untouched.
+    private void readResult(int shard, DataInputStream in) throws IOException {
+        Map<String, int[]> files = new HashMap<>();
+        int fileCount = in.readInt();
+        for (int i = 0; i < fileCount; i++) {
+            String name = in.readUTF();
+            int[] totals = new int[4];
+            for (int j = 0; j < totals.length; j++) totals[j] = in.readInt();
+            files.put(name, totals);
+        }
+        Map<String, Integer> female = readTotals(in);
+        Map<String, Integer> male = readTotals(in);
+        Map<String, Integer> combined = readTotals(in);
+        synchronized (result) {
+            if (!finishedShards.add(shard)) return; // Already merged from an earlier attempt
+            result.fileResults.putAll(files);
+            female.forEach((name, count) -> result.femaleTotals.merge(name, count, Integer::sum));
+            male.forEach((name, count) -> result.maleTotals.merge(name, count, Integer::sum));
+            combined.forEach((name, count) -> result.combinedTotals.merge(name, count, Integer::sum));
+        }
+        remaining.countDown();
+    }
+
+    private void shardFailed(int shard) {
+        synchronized (result) {
+            if (finishedShards.contains(shard)) return;
+            attempts[shard]++;
+            if (attempts[shard] < MAX_SHARD_ATTEMPTS) {
+                result.shardRetries++;
+                pendingShards.add(shard);
+                return;
+            }
+            finishedShards.add(shard);
+            for (File file : shards.get(shard)) result.failedFiles.add(file.getName());
+        }
+        System.err.println("Error: Giving up on shard " + shard + " after " + MAX_SHARD_ATTEMPTS + " attempts.");
+        remaining.countDown();
+    }
+
+    private static Map<String, Integer> readTotals(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, Integer> totals = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) totals.put(in.readUTF(), in.readInt());
+        return totals;
+    }
+
+    private static void writeTotals(DataOutputStream out, Map<String, Integer> totals) throws IOException {
+        out.writeInt(totals.size());
+        for (Map.Entry<String, Integer> entry : totals.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    // --- Worker ---
+
+    /**
+     * Worker loop: connects to the coordinator (retrying with backoff), totals each shard it is
+     * given and sends the result back, and reconnects if the connection breaks. Returns on DONE.
+     */
+    static void runWorker(int port, int workerId, double dropRate, double crashRate) {
+        Random random = new Random(System.nanoTime() ^ workerId);
+        ProcessBabyNames processor = new ProcessBabyNames();
+        int failedConnects = 0;
+        while (true) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                failedConnects = 0;
+                out.writeByte(HELLO);
+                out.writeInt(workerId);
+                out.flush();
+                while (true) {
+                    byte message = in.readByte();
+                    if (message == DONE) return;
+                    if (message != SHARD) throw new IOException("Unexpected message " + message);
+                    int shard = in.readInt();
+                    List<File> files = new ArrayList<>();
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) files.add(new File(in.readUTF()));
+
+                    byte[] reply;
+                    try {
+                        reply = totalShard(processor, shard, files);
+                    } catch (IOException | RuntimeException e) {
+                        reply = failure(shard, e);
+                    }
+                    if (random.nextDouble() < crashRate) Runtime.getRuntime().halt(3);
+                    if (random.nextDouble() < dropRate) throw new SocketException("Injected connection drop");
+                    out.write(reply);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                if (++failedConnects > MAX_CONNECT_ATTEMPTS) {
+                    System.err.println("Error: Worker " + workerId + " could not reach the coordinator: " + e.getMessage());
+                    System.exit(1);
+                }
+                sleep(Math.min(2000, 50L << failedConnects));
+            }
+        }
+    }
+
+    // Totals the shard's files in this JVM and encodes the RESULT message.
+    private static byte[] totalShard(ProcessBabyNames processor, int shard, List<File> files) throws IOException {
+        Map<String, Integer> female = new HashMap<>();
+        Map<String, Integer> male = new HashMap<>();
+        Map<String, Integer> combined = new HashMap<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RESULT);
+        out.writeInt(shard);
+        out.writeInt(files.size());
+        for (File file : files) {
+            // processAndAnalyzeFile reports unreadable files and carries on; here that should fail the shard.
+            if (!file.canRead()) throw new IOException("Cannot read " + file);
+            int[] totals = processor.processAndAnalyzeFile(file, file.getName(), female, male, combined);
+            out.writeUTF(file.getName());
+            for (int total : totals) out.writeInt(total);
+        }
+        writeTotals(out, female);
+        writeTotals(out, male);
+        writeTotals(out, combined);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] failure(int shard, Exception e) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FAILED);
+        out.writeInt(shard);
+        out.writeUTF(String.valueOf(e.getMessage()));
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Test / entry point ---
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--worker")) {
+            runWorker(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                      Double.parseDouble(option(args, "--drop-rate", "0")), Double.parseDouble(option(args, "--crash-rate", "0")));
+            return;
+        }
+        if (args.length == 0) {
+            System.out.println("Usage: java ShardedAnalysis <dataFolder> [fileSuffix] [--workers N] [--shards N] "
+                               + "[--drop-rate p] [--crash-rate p] [--verify]");
+            return;
+        }
+        String suffix = args.length > 1 && !args[1].startsWith("--") ? args[1] : ".csv";
+        int workers = Integer.parseInt(option(args, "--workers", "4"));
+        int shardCount = Integer.parseInt(option(args, "--shards", Integer.toString(workers * 4)));
+        List<String> workerArgs = new ArrayList<>();
+        for (String flag : new String[] {"--drop-rate", "--crash-rate"}) {
+            String value = option(args, flag, null);
+            if (value != null) Collections.addAll(workerArgs, flag, value);
+        }
+        List<File> files = new ArrayList<>();
+        File[] listing = new File(args[0]).listFiles();
+        if (listing != null) {
+            for (File file : listing) {
+                if (BabyNameCorpus.getYearFromFilename(file.getName(), suffix) != -1) files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("No yobXXXX" + suffix + " files found in " + args[0] + ".");
+            return;
+        }
+
+        long start = System.nanoTime();
+        Result sharded = run(files, workers, shardCount, workerArgs.toArray(new String[0]));
+        System.out.printf("Totaled %d file(s) in %d shard(s) on %d worker(s) in %.0f ms (%d shard retries, %d worker restarts).%n",
+                          sharded.getFileResults().size(), Math.min(shardCount, files.size()), workers,
+                          (System.nanoTime() - start) / 1e6, sharded.getShardRetries(), sharded.getWorkerRestarts());
+        if (!sharded.getFailedFiles().isEmpty()) System.out.println("Failed files: " + sharded.getFailedFiles());
+        System.out.println("Distinct names: " + sharded.getFemaleTotals().size() + " female, " + sharded.getMaleTotals().size()
+                           + " male, " + sharded.getCombinedTotals().size() + " combined");
+
+        if (Arrays.asList(args).contains("--verify")) {
+            start = System.nanoTime();
+            Map<String, Integer> female = new HashMap<>();
+            Map<String, Integer> male = new HashMap<>();
+            Map<String, Integer> combined = new HashMap<>();
+            Map<String, int[]> fileResults = new TreeMap<>();
+            ProcessBabyNames processor = new ProcessBabyNames();
+            for (File file : files) fileResults.put(file.getName(), processor.processAndAnalyzeFile(file, file.getName(), female, male, combined));
+            System.out.printf("Single JVM: %.0f ms%n", (System.nanoTime() - start) / 1e6);
+            boolean same = female.equals(sharded.getFemaleTotals()) && male.equals(sharded.getMaleTotals())
+                           && combined.equals(sharded.getCombinedTotals()) && fileResults.keySet().equals(sharded.getFileResults().keySet());
+            for (Map.Entry<String, int[]> entry : fileResults.entrySet()) {
+                same &= Arrays.equals(entry.getValue(), sharded.getFileResults().get(entry.getKey()));
+            }
+            System.out.println("--> Expected: sharded totals match single JVM, Got: " + (same ? "match" : "MISMATCH"));
+        }
+    }
+
+    private static String option(String[] args, String flag, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(flag)) return args[i + 1];
+        }
+        return defaultValue;
+    }
+}
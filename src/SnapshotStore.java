@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shares one fully built, immutable dataset between many reader threads.
+ * Readers grab the current Snapshot with a single volatile read and never
+ * lock. A reload builds a complete new Snapshot off to the side and swaps it
+ * in atomically, so queries are never blocked by a reload and never see a
+ * half-built map; readers holding the old snapshot keep using it until done.
+ */
+public class SnapshotStore {
+
+    /**
+     * Everything a query needs, built before publication and never modified afterwards.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final BabyNameCorpus corpus;
+        private final YearRangeIndex rangeIndex;
+        private final List<ProcessBabyNames.NameCount> femaleAllTime;
+        private final List<ProcessBabyNames.NameCount> maleAllTime;
+        private final List<ProcessBabyNames.NameCount> combinedAllTime;
+
+        private Snapshot(long version, BabyNameCorpus corpus) {
+            this.version = version;
+            this.corpus = corpus;
+            this.rangeIndex = new YearRangeIndex(corpus);
+            Map<String, Integer> female = new HashMap<>();
+            Map<String, Integer> male = new HashMap<>();
+            Map<String, Integer> combined = new HashMap<>();
+            for (YearData yearData : corpus.years().values()) {
+                addAll(yearData, "F", female, combined);
+                addAll(yearData, "M", male, combined);
+            }
+            this.femaleAllTime = ranked(female);
+            this.maleAllTime = ranked(male);
+            this.combinedAllTime = ranked(combined);
+        }
+
+        public long getVersion() { return version; }
+        public BabyNameCorpus getCorpus() { return corpus; }
+        public YearRangeIndex getRangeIndex() { return rangeIndex; }
+
+        /** Rank of the name in the year, or -1 if not found. */
+        public int getRank(int year, String name, String gender) {
+            YearData yearData = corpus.getYear(year);
+            return yearData == null ? -1 : yearData.getRank(name, gender);
+        }
+
+        /** Name at the rank in the year, or "NO NAME". */
+        public String getName(int year, int rank, String gender) {
+            YearData yearData = corpus.getYear(year);
+            return yearData == null ? "NO NAME" : yearData.getName(rank, gender);
+        }
+
+        /** Name with the same rank in newYear as the name had in year, or "NO NAME". */
+        public String whatIsNameInYear(String name, int year, int newYear, String gender) {
+            int rank = getRank(year, name, gender);
+            return rank == -1 ? "NO NAME" : getName(newYear, rank, gender);
+        }
+
+        /** Births of names ranked above the name in the year (all of the gender if absent), or -1 if no such year. */
+        public int getTotalBirthsRankedHigher(int year, String name, String gender) {
+            YearData yearData = corpus.getYear(year);
+            if (yearData == null) return -1;
+            int rank = yearData.getRank(name, gender);
+            int higher = rank == -1 ? yearData.size(gender) : rank - 1;
+            return (int) yearData.getCountColumn(gender).sumRange(0, higher);
+        }
+
+        /** Year in which the name had its best rank, or -1 if it never appears. */
+        public int yearOfHighestRank(String name, String gender) {
+            int bestRank = Integer.MAX_VALUE;
+            int bestYear = -1;
+            for (YearData yearData : corpus.years().values()) {
+                int rank = yearData.getRank(name, gender);
+                if (rank != -1 && rank < bestRank) {
+                    bestRank = rank;
+                    bestYear = yearData.getYear();
+                }
+            }
+            return bestYear;
+        }
+
+        /** All-time ranking across every year: "F", "M", or anything else for combined. */
+        public List<ProcessBabyNames.NameCount> allTimeRanking(String gender) {
+            if (gender.equalsIgnoreCase("F")) return femaleAllTime;
+            if (gender.equalsIgnoreCase("M")) return maleAllTime;
+            return combinedAllTime;
+        }
+
+        private static void addAll(YearData yearData, String gender, Map<String, Integer> byGender, Map<String, Integer> combined) {
+            String[] names = yearData.getNames(gender);
+            int[] counts = yearData.getCounts(gender);
+            for (int i = 0; i < names.length; i++) {
+                if (counts[i] <= 0) continue;
+                byGender.merge(names[i], counts[i], Integer::sum);
+                combined.merge(names[i], counts[i], Integer::sum);
+            }
+        }
+
+        private static List<ProcessBabyNames.NameCount> ranked(Map<String, Integer> totals) {
+            List<ProcessBabyNames.NameCount> list = new ArrayList<>(totals.size());
+            for (Map.Entry<String, Integer> entry : totals.entrySet()) {
+                list.add(new ProcessBabyNames.NameCount(entry.getKey(), entry.getValue()));
+            }
+            Collections.sort(list);
+            return Collections.unmodifiableList(list);
+        }
+    }
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    // Only reloads take this lock, so two reloads never build at once; readers never touch it.
+    private final Object reloadLock = new Object();
+
+    /** Builds and publishes the first snapshot from the folder. */
+    public SnapshotStore(String folderPath, String suffix) {
+        reload(folderPath, suffix);
+    }
+
+    /** The snapshot to answer a query from. Never null, never blocks. */
+    public Snapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Reads the folder into a brand-new snapshot and publishes it. Readers keep using the
+     * previous snapshot until the swap, and see the new one on their next current() call.
+     */
+    public Snapshot reload(String folderPath, String suffix) {
+        return publish(BabyNameCorpus.load(folderPath, suffix));
+    }
+
+    /** Builds a snapshot of an already loaded corpus and publishes it, as reload does. */
+    public Snapshot publish(BabyNameCorpus corpus) {
+        synchronized (reloadLock) {
+            Snapshot fresh = new Snapshot(versions.incrementAndGet(), corpus);
+            current.set(fresh);
+            return fresh;
+        }
+    }
+
+    // --- Test Methods ---
+    /**
+     * Runs reader threads against the store while another thread alternately publishes the whole
+     * folder and every other year of it. Each read takes one snapshot and checks that values
+     * derived from its parts agree: per-gender births summed from the corpus equal the births in
+     * the all-time rankings, the combined ranking equals girls plus boys, and the year-range index
+     * spans exactly the corpus years and has the same top count in them. A snapshot mixing parts of
+     * two builds, or published before it was complete, fails these checks.
+     */
+    public void testConcurrentReloads(String folderPath, String suffix, int readerThreads, int reloads) throws InterruptedException {
+        System.out.println("\n==== Testing concurrent reloads (" + readerThreads + " readers, " + reloads + " reloads) ====");
+        BabyNameCorpus full = BabyNameCorpus.load(folderPath, suffix);
+        List<YearData> oddYears = new ArrayList<>();
+        int position = 0;
+        for (YearData yearData : full.years().values()) {
+            if (position++ % 2 == 1) oddYears.add(yearData);
+        }
+        BabyNameCorpus partial = new BabyNameCorpus(oddYears);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        AtomicReference<String> firstFailure = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(readerThreads);
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < readerThreads; t++) {
+            Thread reader = new Thread(() -> {
+                started.countDown();
+                while (running.get()) {
+                    String problem = inconsistency(current());
+                    if (problem != null) {
+                        failures.incrementAndGet();
+                        firstFailure.compareAndSet(null, problem);
+                    }
+                    reads.incrementAndGet();
+                }
+            }, "snapshot-reader-" + t);
+            readers.add(reader);
+            reader.start();
+        }
+        started.await();
+        long start = System.nanoTime();
+        for (int i = 0; i < reloads; i++) {
+            publish(i % 2 == 0 ? partial : full);
+        }
+        running.set(false);
+        for (Thread reader : readers) reader.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("--> %d reads in %.2f s (%.0f reads/s) across %d reloads; final version %d%n",
+                          reads.get(), seconds, reads.get() / seconds, reloads, current().getVersion());
+        if (firstFailure.get() != null) System.out.println("--> First failure: " + firstFailure.get());
+        System.out.println("--> Expected failures: 0, Got: " + failures.get());
+        System.out.println("===================================");
+    }
+
+    // Returns a description of the first disagreement between parts of the snapshot, or null if none.
+    private static String inconsistency(Snapshot snapshot) {
+        BabyNameCorpus corpus = snapshot.getCorpus();
+        long girls = 0;
+        long boys = 0;
+        for (YearData yearData : corpus.years().values()) {
+            girls += yearData.getCountColumn("F").sumAtLeast(1);
+            boys += yearData.getCountColumn("M").sumAtLeast(1);
+        }
+        long rankedGirls = rankedTotal(snapshot.allTimeRanking("F"));
+        long rankedBoys = rankedTotal(snapshot.allTimeRanking("M"));
+        long rankedCombined = rankedTotal(snapshot.allTimeRanking("all"));
+        if (girls != rankedGirls) return "version " + snapshot.getVersion() + ": corpus girls " + girls + " != ranked " + rankedGirls;
+        if (boys != rankedBoys) return "version " + snapshot.getVersion() + ": corpus boys " + boys + " != ranked " + rankedBoys;
+        if (rankedCombined != rankedGirls + rankedBoys) {
+            return "version " + snapshot.getVersion() + ": combined " + rankedCombined + " != " + rankedGirls + " + " + rankedBoys;
+        }
+        if (corpus.isEmpty()) return null;
+
+        YearRangeIndex index = snapshot.getRangeIndex();
+        int first = corpus.firstYear();
+        int last = corpus.lastYear();
+        if (!index.topNames(Integer.MIN_VALUE, first - 1, "F", 1).isEmpty() || !index.topNames(last + 1, Integer.MAX_VALUE, "F", 1).isEmpty()) {
+            return "version " + snapshot.getVersion() + ": range index has years outside " + first + "-" + last;
+        }
+        for (int year : new int[] {first, last}) {
+            CountColumn counts = corpus.getYear(year).getCountColumn("F");
+            List<ProcessBabyNames.NameCount> top = index.topNames(year, year, "F", 1);
+            int indexed = top.isEmpty() ? 0 : top.get(0).count();
+            int stored = counts.size() == 0 ? 0 : counts.get(0);
+            if (indexed != stored) return "version " + snapshot.getVersion() + ": " + year + " top count " + indexed + " in index, " + stored + " in corpus";
+        }
+        return null;
+    }
+
+    private static long rankedTotal(List<ProcessBabyNames.NameCount> ranking) {
+        long total = 0;
+        for (ProcessBabyNames.NameCount nc : ranking) total += nc.count();
+        return total;
+    }
+
+    /**
+     * Runs the concurrency stress test.
+     * Usage: java SnapshotStore <dataFolder> [fileSuffix] [readers] [reloads]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Usage: java SnapshotStore <dataFolder> [fileSuffix] [readers] [reloads]");
+            return;
+        }
+        String suffix = args.length > 1 ? args[1] : ".csv";
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int reloads = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        SnapshotStore store = new SnapshotStore(args[0], suffix);
+        store.testConcurrentReloads(args[0], suffix, readers, reloads);
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Space-Saving heavy-hitter summary: tracks at most capacity keys. When a new
+ * key arrives and the summary is full, the key with the smallest count is
+ * replaced and the newcomer inherits that count as its possible overestimate.
+ * For every tracked key, count - error <= true total <= count, and any key
+ * whose true total exceeds (total added) / capacity is guaranteed to be tracked.
+ */
+public class SpaceSavingTopK {
+
+    /** A tracked key with its counted total and the most that total can be overstated by. */
+    public record Entry(String name, long count, long error) {
+        public long guaranteedCount() { return count - error; }
+    }
+
+    private final int capacity;
+    private final Map<String, long[]> counters = new HashMap<>();
+    // Min-heap of (count snapshot, name); stale snapshots are refreshed when they reach the head.
+    private final PriorityQueue<Snapshot> byCount = new PriorityQueue<>();
+    private long total;
+
+    private record Snapshot(long count, String name) implements Comparable<Snapshot> {
+        @Override
+        public int compareTo(Snapshot other) { return Long.compare(count, other.count); }
+    }
+
+    public SpaceSavingTopK(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void add(String name, long count) {
+        total += count;
+        long[] counter = counters.get(name);
+        if (counter != null) {
+            // Only the counter changes; the heap snapshot goes stale and is fixed lazily.
+            counter[0] += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(name, new long[] {count, 0});
+            byCount.add(new Snapshot(count, name));
+            return;
+        }
+        Snapshot min = smallest();
+        byCount.poll();
+        counters.remove(min.name());
+        counters.put(name, new long[] {min.count() + count, min.count()});
+        byCount.add(new Snapshot(min.count() + count, name));
+    }
+
+    /** The k tracked keys with the highest counts, highest first. */
+    public List<Entry> top(int k) {
+        TopK<Entry> top = new TopK<>(k, (a, b) -> a.count() != b.count()
+                ? Long.compare(b.count(), a.count()) : a.name().compareTo(b.name()));
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            top.offer(new Entry(e.getKey(), e.getValue()[0], e.getValue()[1]));
+        }
+        return new ArrayList<>(top.toList());
+    }
+
+    /** Any key with a true total above this is guaranteed to be tracked. */
+    public long guaranteeThreshold() {
+        return total / capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Brings the heap head up to date and returns it.
+    private Snapshot smallest() {
+        while (true) {
+            Snapshot head = byCount.peek();
+            long current = counters.get(head.name())[0];
+            if (current == head.count()) return head;
+            byCount.poll();
+            byCount.add(new Snapshot(current, head.name()));
+        }
+    }
+}
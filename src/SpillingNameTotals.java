@@ -0,0 +1,237 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Name -> total births with a cap on how many names are held in memory.
+ * When the in-memory map reaches the cap, its partial totals are sorted by
+ * name and written to a temp file (a "run"). The final ranking merges all
+ * runs by name to add up the partial totals, then sorts the merged totals
+ * by count in capped runs and merges those again, so memory never holds
+ * more than the cap. Ranking order is NameCount order, the same as the
+ * in-memory path.
+ */
+public class SpillingNameTotals implements ObjIntConsumer<String>, Closeable {
+
+    // Most runs merged at once; more runs are merged in several passes to bound open files.
+    private static final int MAX_MERGE_FAN_IN = 64;
+    private static final Comparator<ProcessBabyNames.NameCount> BY_NAME = Comparator.comparing(ProcessBabyNames.NameCount::name);
+
+    private final int maxNamesInMemory;
+    private final Map<String, Integer> current = new HashMap<>();
+    private final List<Path> tempFiles = new ArrayList<>();
+    private final List<Run> nameRuns = new ArrayList<>();
+    private final List<RunReader> openReaders = new ArrayList<>();
+
+    public SpillingNameTotals(int maxNamesInMemory) {
+        this.maxNamesInMemory = Math.max(1, maxNamesInMemory);
+    }
+
+    /** Adds births for a name, spilling to disk first if the in-memory cap is reached. */
+    @Override
+    public void accept(String name, int count) {
+        if (!current.containsKey(name) && current.size() >= maxNamesInMemory) {
+            nameRuns.add(writeRun(sortedCurrent(BY_NAME)));
+            current.clear();
+        }
+        current.merge(name, count, Integer::sum);
+    }
+
+    /** Number of runs written to disk so far. */
+    public int getSpillCount() {
+        return nameRuns.size();
+    }
+
+    /**
+     * Returns every name with its total, most births first. Can only be called once,
+     * since it consumes the spilled runs.
+     */
+    public Iterator<ProcessBabyNames.NameCount> ranked() {
+        if (nameRuns.isEmpty()) {
+            return sortedCurrent(Comparator.naturalOrder()).iterator();
+        }
+        nameRuns.add(writeRun(sortedCurrent(BY_NAME)));
+        current.clear();
+
+        // Merge the name-ordered runs, adding up partial totals of equal names,
+        // and re-sort the merged totals by count in capped runs.
+        List<Run> countRuns = new ArrayList<>();
+        List<ProcessBabyNames.NameCount> buffer = new ArrayList<>();
+        Iterator<ProcessBabyNames.NameCount> merged = merge(nameRuns, BY_NAME);
+        ProcessBabyNames.NameCount pending = null;
+        while (merged.hasNext()) {
+            ProcessBabyNames.NameCount next = merged.next();
+            if (pending != null && pending.name().equals(next.name())) {
+                pending = new ProcessBabyNames.NameCount(pending.name(), pending.count() + next.count());
+                continue;
+            }
+            if (pending != null) addToCountRuns(pending, buffer, countRuns);
+            pending = next;
+        }
+        if (pending != null) addToCountRuns(pending, buffer, countRuns);
+        if (countRuns.isEmpty()) {
+            buffer.sort(Comparator.naturalOrder());
+            return buffer.iterator();
+        }
+        if (!buffer.isEmpty()) {
+            buffer.sort(Comparator.naturalOrder());
+            countRuns.add(writeRun(buffer));
+        }
+        return merge(countRuns, Comparator.naturalOrder());
+    }
+
+    /** Closes any open run readers and deletes all temp files. */
+    @Override
+    public void close() {
+        for (RunReader reader : openReaders) {
+            reader.close();
+        }
+        openReaders.clear();
+        for (Path path : tempFiles) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not delete temp file " + path + ": " + e.getMessage());
+            }
+        }
+        tempFiles.clear();
+    }
+
+    private void addToCountRuns(ProcessBabyNames.NameCount nc, List<ProcessBabyNames.NameCount> buffer, List<Run> countRuns) {
+        buffer.add(nc);
+        if (buffer.size() >= maxNamesInMemory) {
+            buffer.sort(Comparator.naturalOrder());
+            countRuns.add(writeRun(buffer));
+            buffer.clear();
+        }
+    }
+
+    private List<ProcessBabyNames.NameCount> sortedCurrent(Comparator<ProcessBabyNames.NameCount> order) {
+        List<ProcessBabyNames.NameCount> list = new ArrayList<>(current.size());
+        for (Map.Entry<String, Integer> entry : current.entrySet()) {
+            list.add(new ProcessBabyNames.NameCount(entry.getKey(), entry.getValue()));
+        }
+        list.sort(order);
+        return list;
+    }
+
+    private Run writeRun(List<ProcessBabyNames.NameCount> sorted) {
+        return writeRun(sorted.iterator());
+    }
+
+    private Run writeRun(Iterator<ProcessBabyNames.NameCount> sorted) {
+        try {
+            Path path = Files.createTempFile("babynames-run", ".bin");
+            tempFiles.add(path);
+            int size = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                while (sorted.hasNext()) {
+                    ProcessBabyNames.NameCount nc = sorted.next();
+                    out.writeUTF(nc.name());
+                    out.writeInt(nc.count());
+                    size++;
+                }
+            }
+            return new Run(path, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write spill file", e);
+        }
+    }
+
+    /**
+     * k-way merge of sorted runs using a heap of one reader per run. When there are more
+     * than MAX_MERGE_FAN_IN runs, groups of them are first merged into longer runs.
+     */
+    private Iterator<ProcessBabyNames.NameCount> merge(List<Run> runs, Comparator<ProcessBabyNames.NameCount> order) {
+        while (runs.size() > MAX_MERGE_FAN_IN) {
+            List<Run> longer = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MAX_MERGE_FAN_IN) {
+                List<Run> group = runs.subList(i, Math.min(runs.size(), i + MAX_MERGE_FAN_IN));
+                longer.add(group.size() == 1 ? group.get(0) : writeRun(mergeOnce(group, order)));
+            }
+            runs = longer;
+        }
+        return mergeOnce(runs, order);
+    }
+
+    private Iterator<ProcessBabyNames.NameCount> mergeOnce(List<Run> runs, Comparator<ProcessBabyNames.NameCount> order) {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> order.compare(a.head, b.head));
+        for (Run run : runs) {
+            RunReader reader = new RunReader(run);
+            openReaders.add(reader);
+            if (reader.advance()) heap.add(reader);
+        }
+        return new Iterator<ProcessBabyNames.NameCount>() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
+
+            @Override
+            public ProcessBabyNames.NameCount next() {
+                RunReader reader = heap.poll();
+                if (reader == null) throw new NoSuchElementException();
+                ProcessBabyNames.NameCount head = reader.head;
+                if (reader.advance()) heap.add(reader);
+                return head;
+            }
+        };
+    }
+
+    private record Run(Path path, int size) {
+    }
+
+    /** Sequential reader over one run; closes its stream when the run is exhausted. */
+    private static class RunReader {
+        private final DataInputStream in;
+        private int remaining;
+        ProcessBabyNames.NameCount head;
+
+        RunReader(Run run) {
+            try {
+                this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.path())));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open spill file", e);
+            }
+            this.remaining = run.size();
+        }
+
+        boolean advance() {
+            try {
+                if (remaining == 0) {
+                    close();
+                    head = null;
+                    return false;
+                }
+                remaining--;
+                head = new ProcessBabyNames.NameCount(in.readUTF(), in.readInt());
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read spill file", e);
+            }
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Nothing useful to do; the file is deleted anyway.
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k best items seen so far using a bounded min-heap, so picking the top k
+ * out of n candidates costs O(n log k) instead of sorting all n.
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    // Head of the heap is the weakest of the kept items.
+    private final PriorityQueue<T> heap;
+
+    /**
+     * @param k     how many items to keep
+     * @param order best-first ordering (the first item in this order is the best)
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, k + 1), Collections.reverseOrder(order));
+    }
+
+    public void offer(T item) {
+        if (k < 1) return;
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /** The weakest kept item, or null while fewer than k items are kept. */
+    public T weakest() {
+        return heap.size() < k ? null : heap.peek();
+    }
+
+    /** The kept items, best first. */
+    public List<T> toList() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures TrajectoryIndex: build time, then recall@k and latency percentiles of the
+ * LSH search against the exact search, for random query names. --synthetic N
+ * replaces the data folder with N generated names (one to three waves of
+ * popularity over 1880-2020), to test at the size of the full national data.
+ * Without --bits the index picks its default signature length for the corpus.
+ *
+ * Usage: java TrajectorySearchBenchmark [dataFolder] [fileSuffix] [--gender F|M] [--k N]
+ *        [--queries N] [--tables N] [--bits N] [--synthetic N]
+ */
+public class TrajectorySearchBenchmark {
+
+    private static final String DEFAULT_DATA_FOLDER = "C:\\Users\\inouy\\Downloads\\us_babynames\\us_babynames_by_year";
+    private static final String DEFAULT_FILE_SUFFIX = ".csv";
+
+    public static void main(String[] args) {
+        String folder = args.length > 0 && !args[0].startsWith("--") ? args[0] : DEFAULT_DATA_FOLDER;
+        String suffix = args.length > 1 && !args[1].startsWith("--") ? args[1] : DEFAULT_FILE_SUFFIX;
+        String gender = option(args, "--gender", "F");
+        int k = Integer.parseInt(option(args, "--k", "10"));
+        int queryCount = Integer.parseInt(option(args, "--queries", "500"));
+        int tables = Integer.parseInt(option(args, "--tables", Integer.toString(TrajectoryIndex.DEFAULT_TABLES)));
+        int bits = Integer.parseInt(option(args, "--bits", "0"));
+        int synthetic = Integer.parseInt(option(args, "--synthetic", "0"));
+
+        BabyNameCorpus corpus = synthetic > 0 ? syntheticCorpus(synthetic, gender, 7) : BabyNameCorpus.load(folder, suffix);
+        if (corpus.isEmpty()) {
+            System.out.println("No yob files found in " + folder);
+            return;
+        }
+        long start = System.nanoTime();
+        TrajectoryIndex index = new TrajectoryIndex(corpus, gender, tables, bits, 42);
+        System.out.printf("Built index of %d %s names x %d years (%d tables x %d bits) in %.0f ms%n",
+                          index.size(), gender, corpus.lastYear() - corpus.firstYear() + 1, tables, index.bits(), (System.nanoTime() - start) / 1e6);
+
+        // Query names drawn from the rows, weighted toward names present in many years.
+        Random random = new Random(1);
+        List<String> queries = new ArrayList<>();
+        int[] years = corpus.years().keySet().stream().mapToInt(Integer::intValue).toArray();
+        while (queries.size() < queryCount) {
+            YearData yearData = corpus.getYear(years[random.nextInt(years.length)]);
+            if (yearData.size(gender) > 0) queries.add(yearData.getName(1 + random.nextInt(yearData.size(gender)), gender));
+        }
+
+        // Warm-up, then timed runs of each search.
+        for (int i = 0; i < Math.min(200, queries.size()); i++) {
+            index.similar(queries.get(i), k);
+            index.similarExact(queries.get(i), k);
+        }
+        LatencyHistogram exactLatency = new LatencyHistogram();
+        LatencyHistogram lshLatency = new LatencyHistogram();
+        double recallSum = 0;
+        for (String query : queries) {
+            long t0 = System.nanoTime();
+            List<TrajectoryIndex.Match> exact = index.similarExact(query, k);
+            long t1 = System.nanoTime();
+            List<TrajectoryIndex.Match> approximate = index.similar(query, k);
+            long t2 = System.nanoTime();
+            exactLatency.record(t1 - t0);
+            lshLatency.record(t2 - t1);
+            recallSum += recall(exact, approximate);
+        }
+        System.out.printf("Recall@%d: %.3f over %d queries%n", k, recallSum / queries.size(), queries.size());
+        print("Exact", exactLatency);
+        print("LSH + re-rank", lshLatency);
+    }
+
+    // Fraction of the exact top k found by the approximate search; ties at the k-th similarity count as found.
+    static double recall(List<TrajectoryIndex.Match> exact, List<TrajectoryIndex.Match> approximate) {
+        if (exact.isEmpty()) return 1;
+        Set<String> found = new HashSet<>();
+        for (TrajectoryIndex.Match match : approximate) found.add(match.name());
+        double kth = exact.get(exact.size() - 1).similarity();
+        int hits = 0;
+        for (TrajectoryIndex.Match match : exact) {
+            if (found.contains(match.name())) hits++;
+        }
+        for (TrajectoryIndex.Match match : approximate) {
+            if (!exact.contains(match) && match.similarity() >= kth && hits < exact.size()) hits++;
+        }
+        return (double) hits / exact.size();
+    }
+
+    private static void print(String label, LatencyHistogram histogram) {
+        System.out.printf("  %-14s mean %8.3f ms  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms%n", label,
+                          histogram.getMean() / 1e6, histogram.percentile(50) / 1e6, histogram.percentile(99) / 1e6, histogram.getMax() / 1e6);
+    }
+
+    /**
+     * A corpus of `names` made-up names, each popular in one to three waves (a fad, a revival)
+     * peaking in random years with random widths and heights, with year-to-year noise.
+     */
+    static BabyNameCorpus syntheticCorpus(int names, String gender, long seed) {
+        Random random = new Random(seed);
+        int firstYear = 1880, lastYear = 2020;
+        double[][] peak = new double[names][], width = new double[names][], height = new double[names][];
+        for (int i = 0; i < names; i++) {
+            int waves = 1 + random.nextInt(3);
+            peak[i] = new double[waves]; width[i] = new double[waves]; height[i] = new double[waves];
+            for (int w = 0; w < waves; w++) {
+                peak[i][w] = firstYear + random.nextDouble() * (lastYear - firstYear);
+                width[i][w] = 2 + random.nextDouble() * 25;
+                height[i][w] = 5 + Math.pow(random.nextDouble(), 4) * 20000;
+            }
+        }
+        List<YearData> years = new ArrayList<>();
+        for (int year = firstYear; year <= lastYear; year++) {
+            List<int[]> rows = new ArrayList<>(); // {name id, count}
+            for (int i = 0; i < names; i++) {
+                double level = 0;
+                for (int w = 0; w < peak[i].length; w++) {
+                    double z = (year - peak[i][w]) / width[i][w];
+                    level += height[i][w] * Math.exp(-0.5 * z * z);
+                }
+                int count = (int) (level * (0.6 + 0.8 * random.nextDouble()));
+                if (count >= 5) rows.add(new int[] {i, count});
+            }
+            rows.sort((a, b) -> Integer.compare(b[1], a[1]));
+            String[] rowNames = new String[rows.size()];
+            int[] counts = new int[rows.size()];
+            for (int r = 0; r < rows.size(); r++) {
+                rowNames[r] = "Name" + rows.get(r)[0];
+                counts[r] = rows.get(r)[1];
+            }
+            boolean female = YearData.isFemale(gender);
+            years.add(new YearData(year, female ? rowNames : new String[0], female ? counts : new int[0],
+                                   female ? new String[0] : rowNames, female ? new int[0] : counts));
+        }
+        return new BabyNameCorpus(years);
+    }
+
+    private static String option(String[] args, String flag, String defaultValue) {
+        int i = Arrays.asList(args).indexOf(flag);
+        return i >= 0 && i + 1 < args.length ? args[i + 1] : defaultValue;
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Names given to both girls and boys: for every such name, its female and male
+ * births in each year both genders used it, the female share and F/M ratio per
+ * year, and the years it crossed over (the leading gender changed).
+ *
+ * Each year's girls' and boys' names are joined in one merge pass over the
+ * two name-sorted indexes, so the join output is itself in name order. The
+ * years are then combined in one k-way merge of those sorted lists, which
+ * hands over each name's years together and in year order. No per-name
+ * lookups are made.
+ */
+public class UnisexNames {
+
+    /**
+     * One unisex name: years[i] is a year both genders used it, with female[i] girls and male[i] boys.
+     * crossoverYears are the years in which the leading gender differs from the last year that had one.
+     */
+    public record UnisexName(String name, int[] years, int[] female, int[] male, int[] crossoverYears) {
+        public long totalFemale() { return sum(female); }
+        public long totalMale() { return sum(male); }
+        public long totalBirths() { return totalFemale() + totalMale(); }
+        /** Fraction of the name's births (over its shared years) that were girls. */
+        public double femaleShare() { return (double) totalFemale() / totalBirths(); }
+        /** Fraction of the name's births in its i-th shared year that were girls. */
+        public double femaleShare(int i) { return (double) female[i] / (female[i] + male[i]); }
+        /** Girls per boy in the name's i-th shared year. */
+        public double ratio(int i) { return (double) female[i] / male[i]; }
+        public int firstYear() { return years[0]; }
+        public int lastYear() { return years[years.length - 1]; }
+
+        private static long sum(int[] values) {
+            long total = 0;
+            for (int v : values) total += v;
+            return total;
+        }
+    }
+
+    // Unisex names sorted by lower-cased name.
+    private final List<UnisexName> names;
+    private final String[] keys;
+
+    private UnisexNames(List<UnisexName> names) {
+        this.names = names;
+        this.keys = new String[names.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = names.get(i).name().toLowerCase();
+    }
+
+    /**
+     * Joins girls' and boys' names in every year of the corpus and merges the results across years.
+     */
+    public static UnisexNames compute(BabyNameCorpus corpus) {
+        PriorityQueue<YearJoin> cursors = new PriorityQueue<>(
+                Comparator.comparing((YearJoin j) -> j.keys[j.position]).thenComparingInt(j -> j.year));
+        for (YearData yearData : corpus.years().values()) {
+            YearJoin join = YearJoin.of(yearData);
+            if (join.size > 0) cursors.add(join);
+        }
+
+        List<UnisexName> result = new ArrayList<>();
+        int capacity = Math.max(1, cursors.size());
+        int[] years = new int[capacity];
+        int[] female = new int[capacity];
+        int[] male = new int[capacity];
+        while (!cursors.isEmpty()) {
+            // Every cursor positioned on this name comes out next, earliest year first.
+            YearJoin first = cursors.peek();
+            String key = first.keys[first.position];
+            String name = first.names[first.position];
+            int count = 0;
+            while (!cursors.isEmpty() && cursors.peek().keys[cursors.peek().position].equals(key)) {
+                YearJoin join = cursors.poll();
+                years[count] = join.year;
+                female[count] = join.female[join.position];
+                male[count] = join.male[join.position];
+                count++;
+                if (++join.position < join.size) cursors.add(join);
+            }
+            result.add(new UnisexName(name, Arrays.copyOf(years, count), Arrays.copyOf(female, count),
+                                      Arrays.copyOf(male, count), crossovers(years, female, male, count)));
+        }
+        return new UnisexNames(result);
+    }
+
+    /** Number of names used by both genders in at least one year. */
+    public int size() {
+        return names.size();
+    }
+
+    /** All unisex names, in name order. */
+    public List<UnisexName> getNames() {
+        return names;
+    }
+
+    /** The name's history (case-insensitive), or null if no year had it for both genders. */
+    public UnisexName get(String name) {
+        int i = Arrays.binarySearch(keys, name.toLowerCase());
+        return i < 0 ? null : names.get(i);
+    }
+
+    /**
+     * The k names whose overall female share is closest to one half, among names with at least
+     * minBirths births over their shared years; most births first among equally balanced names.
+     */
+    public List<UnisexName> mostBalanced(int k, long minBirths) {
+        TopK<UnisexName> top = new TopK<>(k, Comparator.comparingDouble((UnisexName u) -> Math.abs(u.femaleShare() - 0.5))
+                .thenComparing(Comparator.comparingLong(UnisexName::totalBirths).reversed()));
+        for (UnisexName u : names) {
+            if (u.totalBirths() >= minBirths) top.offer(u);
+        }
+        return top.toList();
+    }
+
+    /** The k names with the most births that crossed over at least once. */
+    public List<UnisexName> crossovers(int k) {
+        TopK<UnisexName> top = new TopK<>(k, Comparator.comparingLong(UnisexName::totalBirths).reversed()
+                .thenComparing(u -> u.name().toLowerCase()));
+        for (UnisexName u : names) {
+            if (u.crossoverYears().length > 0) top.offer(u);
+        }
+        return top.toList();
+    }
+
+    /**
+     * Prints the k most balanced names (with at least minBirths births) and the k biggest crossovers.
+     */
+    public void print(int k, long minBirths) {
+        System.out.println("\n==== Unisex Names (" + names.size() + " used by both genders) ====");
+        System.out.println("\n  --- Most Balanced (at least " + minBirths + " births) ---");
+        System.out.println("Name\tGirls\tBoys\tFemale %\tYears");
+        List<UnisexName> balanced = mostBalanced(k, minBirths);
+        if (balanced.isEmpty()) System.out.println("None.");
+        for (UnisexName u : balanced) {
+            System.out.println(u.name() + "\t" + u.totalFemale() + "\t" + u.totalMale() + "\t"
+                               + String.format("%.1f", 100 * u.femaleShare()) + "\t" + u.firstYear() + "-" + u.lastYear());
+        }
+        System.out.println("\n  --- Biggest Crossovers ---");
+        System.out.println("Name\tGirls\tBoys\tCrossover Years");
+        List<UnisexName> crossed = crossovers(k);
+        if (crossed.isEmpty()) System.out.println("None.");
+        for (UnisexName u : crossed) {
+            System.out.println(u.name() + "\t" + u.totalFemale() + "\t" + u.totalMale() + "\t" + Arrays.toString(u.crossoverYears()));
+        }
+        System.out.println("======================================");
+    }
+
+    // A year where girls and boys are tied keeps the previous lead, so a tie alone is not a crossover.
+    private static int[] crossovers(int[] years, int[] female, int[] male, int count) {
+        int[] result = new int[count];
+        int found = 0;
+        int lead = 0;
+        for (int i = 0; i < count; i++) {
+            int sign = Integer.signum(female[i] - male[i]);
+            if (sign == 0) continue;
+            if (lead != 0 && sign != lead) result[found++] = years[i];
+            lead = sign;
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * One year's girls' names joined with its boys' names, in name order, read by a cursor during
+     * the cross-year merge.
+     */
+    private static class YearJoin {
+        private final int year;
+        private final String[] keys;
+        private final String[] names;
+        private final int[] female;
+        private final int[] male;
+        private final int size;
+        private int position;
+
+        private YearJoin(int year, String[] keys, String[] names, int[] female, int[] male, int size) {
+            this.year = year;
+            this.keys = keys;
+            this.names = names;
+            this.female = female;
+            this.male = male;
+            this.size = size;
+        }
+
+        static YearJoin of(YearData yearData) {
+            String[] girls = yearData.getNames("F");
+            String[] boys = yearData.getNames("M");
+            int[] girlCounts = yearData.getCounts("F");
+            int[] boyCounts = yearData.getCounts("M");
+            String[] girlKeys = yearData.getNameKeys("F");
+            String[] boyKeys = yearData.getNameKeys("M");
+            int[] girlOrder = yearData.getNameOrder("F");
+            int[] boyOrder = yearData.getNameOrder("M");
+
+            int capacity = Math.min(girls.length, boys.length);
+            String[] keys = new String[capacity];
+            String[] names = new String[capacity];
+            int[] female = new int[capacity];
+            int[] male = new int[capacity];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            String girlKey = i < girlOrder.length ? girlKeys[girlOrder[i]] : null;
+            String boyKey = j < boyOrder.length ? boyKeys[boyOrder[j]] : null;
+            while (girlKey != null && boyKey != null) {
+                int cmp = girlKey.compareTo(boyKey);
+                if (cmp == 0 && size < capacity && (size == 0 || !keys[size - 1].equals(girlKey))) {
+                    // A name repeated within one gender keeps only its first (highest ranked) row.
+                    keys[size] = girlKey;
+                    names[size] = girls[girlOrder[i]];
+                    female[size] = girlCounts[girlOrder[i]];
+                    male[size] = boyCounts[boyOrder[j]];
+                    size++;
+                }
+                if (cmp <= 0) girlKey = ++i < girlOrder.length ? girlKeys[girlOrder[i]] : null;
+                if (cmp >= 0) boyKey = ++j < boyOrder.length ? boyKeys[boyOrder[j]] : null;
+            }
+            return new YearJoin(yearData.getYear(), keys, names, female, male, size);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Per-file summaries of the "yob" + year + suffix files in a data folder. The
+ * catalog can be kept in a sidecar file chosen by the caller (e.g.
+ * CATALOG_FILE_NAME in the working directory); nothing is written into the data
+ * folder. With a sidecar, each file is parsed once, when it is first cataloged
+ * or after its size or modification time changes, and from then on summaries
+ * and grand totals are read from the sidecar without opening the CSV. Entries
+ * can also be recorded by whoever is reading the files anyway (IngestPipeline
+ * does), so a file read by an analysis run is never parsed again just to be
+ * cataloged. The catalog also maps each year to its file, so callers do not
+ * need a file chooser or the file name to find a year.
+ */
+public class YearCatalog {
+
+    public static final String CATALOG_FILE_NAME = "babynames-catalog.tsv";
+    // Header line, also documents the column order.
+    private static final String HEADER = "#file\tyear\tsize\tmodified\tcrc32\tfemaleRows\tmaleRows\ttotalRows"
+                                         + "\tfemaleBirths\tmaleBirths\ttotalBirths\tmaxCount\tminCount";
+    // Any "yobXXXX...csv" file, whatever its suffix (yob2012.csv, yob2012short.csv).
+    private static final Pattern YOB_FILE = Pattern.compile("(?i)yob\\d{4}.*\\.csv");
+
+    /**
+     * Summary of one yob file. totalRows and totalBirths include rows with an unknown gender;
+     * maxCount and minCount are 0 for a file without rows.
+     */
+    public record Entry(String fileName, int year, long size, long modified, long crc32,
+                        int femaleRows, int maleRows, int totalRows,
+                        long femaleBirths, long maleBirths, long totalBirths,
+                        int maxCount, int minCount) {
+
+        /** Rows for a gender ("F" or "M"), or 0 for any other gender. */
+        public int rows(String gender) {
+            if (YearData.isFemale(gender)) return femaleRows;
+            return gender.equalsIgnoreCase("M") ? maleRows : 0;
+        }
+
+        /** Births for a gender ("F" or "M"), or 0 for any other gender. */
+        public long births(String gender) {
+            if (YearData.isFemale(gender)) return femaleBirths;
+            return gender.equalsIgnoreCase("M") ? maleBirths : 0;
+        }
+
+        /** Whether the entry still describes the file, judged by size and modification time. */
+        boolean matches(File file) {
+            return file.length() == size && file.lastModified() == modified;
+        }
+
+        String toLine() {
+            return fileName + "\t" + year + "\t" + size + "\t" + modified + "\t" + crc32 + "\t" + femaleRows + "\t" + maleRows
+                   + "\t" + totalRows + "\t" + femaleBirths + "\t" + maleBirths + "\t" + totalBirths + "\t" + maxCount + "\t" + minCount;
+        }
+
+        static Entry parse(String line) {
+            String[] p = line.split("\t");
+            if (p.length != 13) throw new IllegalArgumentException("Expected 13 columns, got " + p.length);
+            return new Entry(p[0], Integer.parseInt(p[1]), Long.parseLong(p[2]), Long.parseLong(p[3]), Long.parseLong(p[4]),
+                             Integer.parseInt(p[5]), Integer.parseInt(p[6]), Integer.parseInt(p[7]),
+                             Long.parseLong(p[8]), Long.parseLong(p[9]), Long.parseLong(p[10]),
+                             Integer.parseInt(p[11]), Integer.parseInt(p[12]));
+        }
+    }
+
+    private final File folder;
+    private final String suffix;
+    // Where the catalog is kept between runs, or null to keep it in memory only.
+    private final Path sidecar;
+    // File name -> entry, in file name order.
+    private final NavigableMap<String, Entry> entries;
+    private int ingested;
+    // Entries changed since the sidecar was last written.
+    private boolean dirty;
+
+    private YearCatalog(File folder, String suffix, Path sidecar, NavigableMap<String, Entry> entries) {
+        this.folder = folder;
+        this.suffix = suffix;
+        this.sidecar = sidecar;
+        this.entries = entries;
+    }
+
+    /**
+     * Catalogs the folder's files with the given suffix (e.g. "short.csv") in memory only, parsing each one.
+     */
+    public static YearCatalog open(String folderPath, String suffix) {
+        return open(folderPath, suffix, null);
+    }
+
+    /**
+     * Reads the folder's catalog from the sidecar file (null for none) and brings it up to date;
+     * see refresh. With a current sidecar this only stats the files.
+     */
+    public static YearCatalog open(String folderPath, String suffix, Path sidecar) {
+        YearCatalog catalog = load(folderPath, suffix, sidecar);
+        catalog.refresh();
+        return catalog;
+    }
+
+    /**
+     * Reads the folder's catalog from the sidecar file (null for none) without looking at the
+     * folder, e.g. to record entries into it (see record). A sidecar inside the data folder is
+     * not used; the catalog is then kept in memory only.
+     */
+    public static YearCatalog load(String folderPath, String suffix, Path sidecar) {
+        File folder = new File(folderPath);
+        if (sidecar != null && folder.getAbsoluteFile().toPath().equals(sidecar.toAbsolutePath().getParent())) {
+            System.err.println("Warning: Not keeping the catalog " + sidecar + " inside the data folder; keeping it in memory only.");
+            sidecar = null;
+        }
+        NavigableMap<String, Entry> entries = sidecar == null ? new TreeMap<>() : readSidecar(sidecar.toFile());
+        return new YearCatalog(folder, suffix, sidecar, entries);
+    }
+
+    /**
+     * Summarizes one file without cataloging the rest of its folder or writing anything, and warns
+     * about rows with an unexpected gender. The year is -1 unless the file is named like a yob file.
+     */
+    public static Entry summarize(File file) throws IOException {
+        int year = YOB_FILE.matcher(file.getName()).matches() ? Integer.parseInt(file.getName().substring(3, 7)) : -1;
+        return ingest(file, year, true);
+    }
+
+    /**
+     * Same as summarize(File), but returns the file's entry from the sidecar (null for none)
+     * without opening the file if the entry is current, judged by size and modification time.
+     */
+    public static Entry summarize(File file, Path sidecar) throws IOException {
+        if (sidecar != null) {
+            Entry entry = readSidecar(sidecar.toFile()).get(file.getName());
+            if (entry != null && entry.matches(file)) return entry;
+        }
+        return summarize(file);
+    }
+
+    /** Number of files parsed by the last refresh (0 when the sidecar was already current). */
+    public int getIngestedCount() {
+        return ingested;
+    }
+
+    /** All entries in file name order. */
+    public Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /** The entry for a file in this folder, or null if it is not a cataloged yob file. */
+    public Entry get(File file) {
+        return inFolder(file) ? entries.get(file.getName()) : null;
+    }
+
+    /**
+     * The year of a "yob" + year + suffix file in this folder, or -1 for any other file.
+     * Only looks at the name and folder, so it works before the file is cataloged.
+     */
+    public int yearOf(File file) {
+        return inFolder(file) ? BabyNameCorpus.getYearFromFilename(file.getName(), suffix) : -1;
+    }
+
+    /**
+     * Records an entry computed by a caller that read the file anyway; ignored unless the entry's
+     * year is that of a file of this catalog (see yearOf). The sidecar is written by save.
+     */
+    public void record(File file, Entry entry) {
+        int year = yearOf(file);
+        if (year == -1 || year != entry.year() || !file.getName().equals(entry.fileName())) return;
+        Entry previous = entries.put(entry.fileName(), entry);
+        if (!entry.equals(previous)) dirty = true;
+    }
+
+    /** Writes the sidecar if entries changed since it was last written. */
+    public void save() {
+        if (dirty && sidecar != null) writeSidecar();
+        dirty = false;
+    }
+
+    /**
+     * The entry for the year's "yob" + year + suffix file, or null if there is none.
+     */
+    public Entry get(int year, String suffix) {
+        for (Entry entry : entries.values()) {
+            if (entry.year() == year && BabyNameCorpus.getYearFromFilename(entry.fileName(), suffix) == year) return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Year -> entry for the files with the given suffix (e.g. "short.csv"), in year order.
+     */
+    public NavigableMap<Integer, Entry> years(String suffix) {
+        NavigableMap<Integer, Entry> years = new TreeMap<>();
+        for (Entry entry : entries.values()) {
+            if (BabyNameCorpus.getYearFromFilename(entry.fileName(), suffix) != -1) years.put(entry.year(), entry);
+        }
+        return years;
+    }
+
+    /** Year -> file for the files with the given suffix, in year order. */
+    public NavigableMap<Integer, File> files(String suffix) {
+        NavigableMap<Integer, File> files = new TreeMap<>();
+        for (Map.Entry<Integer, Entry> entry : years(suffix).entrySet()) {
+            files.put(entry.getKey(), new File(folder, entry.getValue().fileName()));
+        }
+        return files;
+    }
+
+    /**
+     * Recomputes every file's checksum and returns the names of files whose contents no longer
+     * match their entry even though size and modification time do. Reads every file.
+     */
+    public Collection<String> verify() {
+        Collection<String> mismatched = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            try {
+                Entry actual = ingest(new File(folder, entry.fileName()), entry.year(), false);
+                if (actual.crc32() != entry.crc32()) mismatched.add(entry.fileName());
+            } catch (IOException e) {
+                System.err.println("Error reading file: " + entry.fileName() + " - " + e.getMessage());
+                mismatched.add(entry.fileName());
+            }
+        }
+        return mismatched;
+    }
+
+    /**
+     * Brings the catalog up to date with the folder: files with the suffix that are new or changed
+     * since they were cataloged are parsed now, entries for deleted files are dropped, and the
+     * sidecar is rewritten if anything changed. Entries for files without the suffix are kept as
+     * they are, so one sidecar can serve several suffixes.
+     */
+    public void refresh() {
+        ingested = 0;
+        File[] listing = folder.listFiles();
+        if (listing == null) {
+            System.err.println("Error: Could not list data folder: " + folder);
+            return;
+        }
+        boolean changed = false;
+        NavigableMap<String, Entry> current = new TreeMap<>();
+        for (Entry entry : entries.values()) {
+            if (BabyNameCorpus.getYearFromFilename(entry.fileName(), suffix) == -1) current.put(entry.fileName(), entry);
+        }
+        for (File file : listing) {
+            int year = BabyNameCorpus.getYearFromFilename(file.getName(), suffix);
+            if (!file.isFile() || year == -1) continue;
+            Entry entry = entries.get(file.getName());
+            if (entry == null || !entry.matches(file)) {
+                try {
+                    entry = ingest(file, year, false);
+                    ingested++;
+                    changed = true;
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error reading file: " + file.getName() + " - " + e.getMessage());
+                    continue;
+                }
+            }
+            current.put(file.getName(), entry);
+        }
+        changed |= !current.keySet().equals(entries.keySet());
+        entries.clear();
+        entries.putAll(current);
+        dirty |= changed;
+        save();
+    }
+
+    private boolean inFolder(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        return parent != null && parent.equals(folder.getAbsoluteFile());
+    }
+
+    /**
+     * Parses one file and summarizes it, computing the checksum over the same bytes the parser reads.
+     * Unparseable counts are tallied as 0; rows with an unexpected gender are reported when warn is set.
+     */
+    static Entry ingest(File file, int year, boolean warn) throws IOException {
+        long size = file.length();
+        long modified = file.lastModified();
+        int femaleRows = 0; int maleRows = 0; int totalRows = 0;
+        // Counts are gathered per gender and totaled with CountAggregator; other genders are rare.
+        int[] femaleCounts = new int[1024]; int[] maleCounts = new int[1024]; long otherBirths = 0;
+        int maxCount = Integer.MIN_VALUE; int minCount = Integer.MAX_VALUE;
+        CRC32 crc = new CRC32();
+        try (InputStream in = new CheckedInputStream(Files.newInputStream(file.toPath()), crc);
+             Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             CSVParser parser = CSVFormat.DEFAULT.parse(reader)) {
+            for (CSVRecord record : parser) {
+                totalRows++;
+                int count = 0;
+                try {
+                    count = Integer.parseInt(record.get(2));
+                } catch (NumberFormatException e) {
+                    System.err.println("Warning: Could not parse number in record: " + record + " in " + file.getName());
+                }
+                maxCount = Math.max(maxCount, count);
+                minCount = Math.min(minCount, count);
+                String gender = record.get(1);
+                if (gender.equalsIgnoreCase("F")) {
+                    if (femaleRows == femaleCounts.length) femaleCounts = Arrays.copyOf(femaleCounts, 2 * femaleRows);
+                    femaleCounts[femaleRows++] = count;
+                } else if (gender.equalsIgnoreCase("M")) {
+                    if (maleRows == maleCounts.length) maleCounts = Arrays.copyOf(maleCounts, 2 * maleRows);
+                    maleCounts[maleRows++] = count;
+                } else {
+                    otherBirths += count;
+                    if (warn) System.err.println("Warning: Unexpected gender value '" + gender + "' in record: " + record + " in " + file.getName());
+                }
+            }
+            // The parser may stop short of the end (e.g. trailing blank lines); checksum every byte.
+            while (reader.read() != -1) { }
+        }
+        if (totalRows == 0) { maxCount = 0; minCount = 0; }
+        long femaleBirths = CountAggregator.sumRange(femaleCounts, 0, femaleRows);
+        long maleBirths = CountAggregator.sumRange(maleCounts, 0, maleRows);
+        long totalBirths = femaleBirths + maleBirths + otherBirths;
+        return new Entry(file.getName(), year, size, modified, crc.getValue(), femaleRows, maleRows, totalRows,
+                         femaleBirths, maleBirths, totalBirths, maxCount, minCount);
+    }
+
+    private static NavigableMap<String, Entry> readSidecar(File sidecar) {
+        NavigableMap<String, Entry> entries = new TreeMap<>();
+        if (!sidecar.isFile()) return entries;
+        try (BufferedReader in = Files.newBufferedReader(sidecar.toPath())) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                try {
+                    Entry entry = Entry.parse(line);
+                    entries.put(entry.fileName(), entry);
+                } catch (IllegalArgumentException e) {
+                    // A bad line only costs a re-parse of that file.
+                    System.err.println("Warning: Ignoring catalog line '" + line + "' in " + sidecar + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read catalog " + sidecar + " - " + e.getMessage());
+        }
+        return entries;
+    }
+
+    // Written to a temp file and moved into place, so a reader never sees half a catalog.
+    private void writeSidecar() {
+        Path target = sidecar.toAbsolutePath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(target.getParent(), "babynames-catalog", ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temp)) {
+                out.write(HEADER);
+                out.newLine();
+                for (Entry entry : entries.values()) {
+                    out.write(entry.toLine());
+                    out.newLine();
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Still usable in memory; the files are just parsed again next time.
+            System.err.println("Warning: Could not write catalog " + target + " - " + e.getMessage());
+            try {
+                if (temp != null) Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nothing more to do.
+            }
+        }
+    }
+}
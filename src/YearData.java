@@ -0,0 +1,231 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * One year of baby name data held in memory.
+ * Names and counts are kept per gender in file order (most popular first),
+ * so the array index + 1 is the rank. Lookups by name use a hash map
+ * instead of scanning the file. Counts are held compressed (see CountColumn)
+ * and read by rank without being expanded.
+ */
+public class YearData {
+
+    private final int year;
+    private final String[] femaleNames;
+    private final CountColumn femaleCounts;
+    private final String[] maleNames;
+    private final CountColumn maleCounts;
+    // Lower-cased name -> rank (1-based), one map per gender.
+    private final Map<String, Integer> femaleRanks;
+    private final Map<String, Integer> maleRanks;
+    // Lower-cased names in rank order, and rank indexes sorted by them, built on first use for merge joins.
+    private volatile String[] femaleNameKeys;
+    private volatile String[] maleNameKeys;
+    private volatile int[] femaleNameOrder;
+    private volatile int[] maleNameOrder;
+
+    public YearData(int year, String[] femaleNames, int[] femaleCounts, String[] maleNames, int[] maleCounts) {
+        this.year = year;
+        this.femaleNames = femaleNames;
+        this.femaleCounts = CountColumn.of(femaleCounts);
+        this.maleNames = maleNames;
+        this.maleCounts = CountColumn.of(maleCounts);
+        this.femaleRanks = buildRankMap(femaleNames);
+        this.maleRanks = buildRankMap(maleNames);
+    }
+
+    /**
+     * Reads a yob CSV file (0=name, 1=gender, 2=count, no header).
+     * Records with an unknown gender are skipped with a warning, and
+     * unparseable counts are stored as 0, matching ProcessBabyNames.
+     */
+    public static YearData load(File file, int year) throws IOException {
+        List<String> fNames = new ArrayList<>();
+        List<Integer> fCounts = new ArrayList<>();
+        List<String> mNames = new ArrayList<>();
+        List<Integer> mCounts = new ArrayList<>();
+
+        try (Reader reader = Files.newBufferedReader(file.toPath());
+             CSVParser parser = CSVFormat.DEFAULT.parse(reader)) {
+            for (CSVRecord record : parser) {
+                String name = record.get(0);
+                String gender = record.get(1);
+                int count = 0;
+                try {
+                    count = Integer.parseInt(record.get(2));
+                } catch (NumberFormatException e) {
+                    System.err.println("Warning: Could not parse number in record: " + record + " in " + file.getName());
+                }
+                if (gender.equalsIgnoreCase("F")) {
+                    fNames.add(name);
+                    fCounts.add(count);
+                } else if (gender.equalsIgnoreCase("M")) {
+                    mNames.add(name);
+                    mCounts.add(count);
+                } else {
+                    System.err.println("Warning: Unexpected gender value '" + gender + "' in record: " + record + " in " + file.getName());
+                }
+            }
+        }
+        return new YearData(year, fNames.toArray(new String[0]), toIntArray(fCounts),
+                            mNames.toArray(new String[0]), toIntArray(mCounts));
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Returns the names for a gender in rank order. Callers must not modify the array.
+     */
+    public String[] getNames(String gender) {
+        if (isFemale(gender)) return femaleNames;
+        if (gender.equalsIgnoreCase("M")) return maleNames;
+        return new String[0];
+    }
+
+    /**
+     * Returns the counts for a gender in rank order, decoded into a new array on every call.
+     * Use getCount or getCountColumn to read a few counts or sum a range without decoding them all.
+     */
+    public int[] getCounts(String gender) {
+        return getCountColumn(gender).toArray();
+    }
+
+    /**
+     * Returns the compressed counts for a gender in rank order (index = rank - 1).
+     */
+    public CountColumn getCountColumn(String gender) {
+        if (isFemale(gender)) return femaleCounts;
+        if (gender.equalsIgnoreCase("M")) return maleCounts;
+        return CountColumn.EMPTY;
+    }
+
+    /** Number of distinct names recorded for the gender in this year. */
+    public int size(String gender) {
+        return getNames(gender).length;
+    }
+
+    /** Total births recorded for the gender in this year. */
+    public long getTotalBirths(String gender) {
+        return getCountColumn(gender).sum();
+    }
+
+    /**
+     * Returns the rank of the name for the gender, or -1 if it is not present.
+     */
+    public int getRank(String name, String gender) {
+        Integer rank = ranksFor(gender).get(name.toLowerCase());
+        return rank == null ? -1 : rank;
+    }
+
+    /**
+     * Returns the name at the given rank, or "NO NAME" if the rank is out of range.
+     */
+    public String getName(int rank, String gender) {
+        String[] names = getNames(gender);
+        if (rank < 1 || rank > names.length) return "NO NAME";
+        return names[rank - 1];
+    }
+
+    /**
+     * Returns the count at the given rank, or 0 if the rank is out of range.
+     */
+    public int getCount(int rank, String gender) {
+        CountColumn counts = getCountColumn(gender);
+        if (rank < 1 || rank > counts.size()) return 0;
+        return counts.get(rank - 1);
+    }
+
+    /**
+     * Returns the rank indexes (rank - 1) for the gender ordered by lower-cased name,
+     * so two years can be joined by walking both orders side by side.
+     * Callers must not modify the array.
+     */
+    public int[] getNameOrder(String gender) {
+        if (isFemale(gender)) {
+            if (femaleNameOrder == null) femaleNameOrder = sortByKey(getNameKeys(gender));
+            return femaleNameOrder;
+        }
+        if (gender.equalsIgnoreCase("M")) {
+            if (maleNameOrder == null) maleNameOrder = sortByKey(getNameKeys(gender));
+            return maleNameOrder;
+        }
+        return new int[0];
+    }
+
+    /**
+     * Returns the lower-cased names for the gender in rank order (index = rank - 1), the keys
+     * getNameOrder sorts by, so a merge join can compare them without lower-casing per step.
+     * Callers must not modify the array.
+     */
+    public String[] getNameKeys(String gender) {
+        if (isFemale(gender)) {
+            if (femaleNameKeys == null) femaleNameKeys = lowerCase(femaleNames);
+            return femaleNameKeys;
+        }
+        if (gender.equalsIgnoreCase("M")) {
+            if (maleNameKeys == null) maleNameKeys = lowerCase(maleNames);
+            return maleNameKeys;
+        }
+        return new String[0];
+    }
+
+    private Map<String, Integer> ranksFor(String gender) {
+        if (isFemale(gender)) return femaleRanks;
+        if (gender.equalsIgnoreCase("M")) return maleRanks;
+        return Map.of();
+    }
+
+    static boolean isFemale(String gender) {
+        return gender.equalsIgnoreCase("F");
+    }
+
+    private static Map<String, Integer> buildRankMap(String[] names) {
+        Map<String, Integer> ranks = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            // Keep the first (highest ranked) occurrence if a name repeats.
+            ranks.putIfAbsent(names[i].toLowerCase(), i + 1);
+        }
+        return ranks;
+    }
+
+    private static String[] lowerCase(String[] names) {
+        String[] keys = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = names[i].toLowerCase();
+        }
+        return keys;
+    }
+
+    private static int[] sortByKey(String[] keys) {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+        int[] result = new int[order.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    private static int[] toIntArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
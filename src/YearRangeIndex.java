@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers "most popular names between two years" without re-adding the years
+ * inside the range. For every name it stores the years the name appears in and
+ * a running (cumulative) total over those years, so each name's range total is
+ * two binary searches and one subtraction.
+ */
+public class YearRangeIndex {
+
+    private final GenderIndex female;
+    private final GenderIndex male;
+
+    public YearRangeIndex(BabyNameCorpus corpus) {
+        this.female = new GenderIndex(corpus, "F");
+        this.male = new GenderIndex(corpus, "M");
+    }
+
+    /**
+     * Returns the n most popular names for the gender across startYear..endYear (inclusive),
+     * most births first. Years missing from the corpus simply contribute nothing.
+     */
+    public List<ProcessBabyNames.NameCount> topNames(int startYear, int endYear, String gender, int n) {
+        GenderIndex index = indexFor(gender);
+        if (index == null || n < 1 || startYear > endYear) return new ArrayList<>();
+
+        TopK<ProcessBabyNames.NameCount> top = new TopK<>(n, Comparator.naturalOrder());
+        for (int id = 0; id < index.names.length; id++) {
+            int total = index.rangeTotal(id, startYear, endYear);
+            if (total > 0) top.offer(new ProcessBabyNames.NameCount(index.names[id], total));
+        }
+        return top.toList();
+    }
+
+    private GenderIndex indexFor(String gender) {
+        if (gender.equalsIgnoreCase("F")) return female;
+        if (gender.equalsIgnoreCase("M")) return male;
+        return null;
+    }
+
+    /**
+     * Per-gender sparse cumulative counts. years[id] and cumulative[id] are parallel
+     * arrays in ascending year order.
+     */
+    private static class GenderIndex {
+        final String[] names;
+        final int[][] years;
+        final int[][] cumulative;
+
+        GenderIndex(BabyNameCorpus corpus, String gender) {
+            // First pass: assign ids and count how many years each name appears in.
+            Map<String, Integer> ids = new HashMap<>();
+            List<String> nameList = new ArrayList<>();
+            int[] occurrences = new int[16];
+            for (YearData yearData : corpus.years().values()) {
+                for (String name : yearData.getNames(gender)) {
+                    String key = name.toLowerCase();
+                    Integer id = ids.get(key);
+                    if (id == null) {
+                        id = nameList.size();
+                        ids.put(key, id);
+                        nameList.add(name);
+                        if (id == occurrences.length) occurrences = Arrays.copyOf(occurrences, id * 2);
+                    }
+                    occurrences[id]++;
+                }
+            }
+            names = nameList.toArray(new String[0]);
+            years = new int[names.length][];
+            cumulative = new int[names.length][];
+            for (int id = 0; id < names.length; id++) {
+                years[id] = new int[occurrences[id]];
+                cumulative[id] = new int[occurrences[id]];
+            }
+
+            // Second pass: fill years and running totals, oldest year first.
+            int[] filled = new int[names.length];
+            for (YearData yearData : corpus.years().values()) {
+                String[] yearNames = yearData.getNames(gender);
+                int[] counts = yearData.getCounts(gender);
+                for (int i = 0; i < yearNames.length; i++) {
+                    int id = ids.get(yearNames[i].toLowerCase());
+                    int pos = filled[id]++;
+                    int previous = pos == 0 ? 0 : cumulative[id][pos - 1];
+                    years[id][pos] = yearData.getYear();
+                    cumulative[id][pos] = previous + counts[i];
+                }
+            }
+        }
+
+        int rangeTotal(int id, int startYear, int endYear) {
+            int[] nameYears = years[id];
+            int last = upperBound(nameYears, endYear) - 1;
+            int beforeFirst = upperBound(nameYears, startYear - 1) - 1;
+            if (last < 0 || last <= beforeFirst) return 0;
+            return cumulative[id][last] - (beforeFirst < 0 ? 0 : cumulative[id][beforeFirst]);
+        }
+
+        // Index of the first element greater than key.
+        private static int upperBound(int[] values, int key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= key) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}